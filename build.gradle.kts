@@ -1,4 +1,3 @@
-
  repositories {
      mavenLocal()
      mavenCentral()
@@ -6,9 +5,59 @@
 
 plugins {
     java
+    id("me.champeau.jmh") version "0.7.2"
 }
 
  dependencies {
      compileOnly("software.amazon.smithy.typescript:smithy-aws-typescript-codegen:0.21.1")
      compileOnly("software.amazon.smithy.typescript:smithy-typescript-codegen:0.21.1")
- }
\ No newline at end of file
+
+     jmh("software.amazon.smithy.typescript:smithy-typescript-codegen:0.21.1")
+
+     testImplementation("software.amazon.smithy.typescript:smithy-typescript-codegen:0.21.1")
+     testImplementation(platform("org.junit:junit-bom:5.10.2"))
+     testImplementation("org.junit.jupiter:junit-jupiter")
+     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+ }
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+// The version is part of the fingerprint of incremental generation, see RouteCustomizerSettings#getFingerprint
+tasks.jar {
+    manifest {
+        attributes("Implementation-Version" to project.version)
+    }
+}
+
+// Run with `gradle jmh`, narrow down with e.g. `gradle jmh -Pjmh.includes=camelToKebabCase`
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
+// Rebuilds a consuming smithy project whenever one of its models changes:
+// `gradle -t smithyWatch -PsmithyProject=../api`
+// Together with `"incremental": true` only the files of changed resources are rewritten.
+val smithyProject = providers.gradleProperty("smithyProject")
+tasks.register<Exec>("smithyWatch") {
+    group = "build"
+    description = "Runs `smithy build` in -PsmithyProject with this customizer on the classpath, use with -t"
+    onlyIf { smithyProject.isPresent }
+    dependsOn(tasks.jar)
+    val modelDir = file(smithyProject.getOrElse("."))
+    inputs.files(fileTree(modelDir) {
+        include("**/*.smithy", "smithy-build.json")
+        exclude("build/**")
+    })
+    workingDir(modelDir)
+    commandLine("smithy", "build", "--discover-classpath", tasks.jar.get().archiveFile.get().asFile.absolutePath)
+}
@@ -0,0 +1,119 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.smithy.build.MockManifest;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.pattern.SmithyPattern;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.traits.HttpTrait;
+import software.amazon.smithy.typescript.codegen.TypeScriptWriter;
+
+/**
+ * Throughput of the route generation against synthetic models, run with {@code gradle jmh}.
+ * The gc profiler configured in the build reports the allocation rate next to every result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RouteCustomizerBenchmark {
+
+    @Param({"10", "100"})
+    int resources;
+
+    @Param({"10", "100"})
+    int operationsPerResource;
+
+    @Param({"1", "4"})
+    int labelsPerOperation;
+
+    private final RouteCustomizer customizer = new RouteCustomizer();
+    private RouteCustomizerSettings settings;
+    private Model model;
+    private OperationCatalog catalog;
+    private List<List<SmithyPattern.Segment>> uriSegments;
+    private List<String> operationNames;
+
+    /**
+     * Only {@link #customize} renders resources, so only it is run with and without parallel rendering.
+     */
+    @State(Scope.Benchmark)
+    public static class CustomizeState {
+
+        @Param({"false", "true"})
+        boolean parallel;
+
+        private RouteCustomizerSettings settings;
+
+        @Setup
+        public void setup() {
+            settings = createSettings(parallel);
+        }
+    }
+
+    private static RouteCustomizerSettings createSettings(boolean parallel) {
+        return RouteCustomizerSettings.from(Node.objectNodeBuilder()
+                .withMember(RouteCustomizerSettings.SETTINGS_KEY, Node.objectNode().withMember("parallel", parallel))
+                .build());
+    }
+
+    @Setup
+    public void setup() {
+        settings = createSettings(false);
+        model = SyntheticModels.create(resources, operationsPerResource, labelsPerOperation, resources);
+        catalog = OperationCatalog.of(model, SyntheticModels.SERVICE);
+        uriSegments = new ArrayList<>();
+        operationNames = new ArrayList<>();
+        for (OperationShape operation : model.getOperationShapes()) {
+            operationNames.add(operation.getId().getName());
+            operation.getTrait(HttpTrait.class).ifPresent(trait -> uriSegments.add(trait.getUri().getSegments()));
+        }
+    }
+
+    @Benchmark
+    public MockManifest customize(CustomizeState state) {
+        var fileManifest = new MockManifest();
+        customizer.generate(model, SyntheticModels.SERVICE, state.settings, GenerationManifest.disabled(), fileManifest);
+        return fileManifest;
+    }
+
+    @Benchmark
+    public OperationCatalog catalog() {
+        return OperationCatalog.of(model, SyntheticModels.SERVICE);
+    }
+
+    @Benchmark
+    public void getPath(Blackhole blackhole) {
+        for (var segments : uriSegments) {
+            blackhole.consume(OperationCatalog.getPath(segments));
+        }
+    }
+
+    @Benchmark
+    public void camelToKebabCase(Blackhole blackhole) {
+        for (var name : operationNames) {
+            blackhole.consume(OperationCatalog.camelToKebabCase(name));
+        }
+    }
+
+    @Benchmark
+    public String writeOperation() {
+        var writer = new TypeScriptWriter("operations");
+        for (var operation : catalog.getOperations()) {
+            RouteCustomizer.writeOperation(operation, settings, writer);
+        }
+        return writer.toString();
+    }
+}
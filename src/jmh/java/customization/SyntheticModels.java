@@ -0,0 +1,102 @@
+package customization;
+
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Builds synthetic Smithy models with a configurable amount of resources and label heavy {@code @http} operations.
+ */
+final class SyntheticModels {
+
+    static final String NAMESPACE = "smithy4sst.bench";
+    static final ShapeId SERVICE = ShapeId.fromParts(NAMESPACE, "BenchService");
+
+    private SyntheticModels() {
+    }
+
+    /**
+     * @param resources            number of top level resources
+     * @param operationsPerResource number of operations bound to each resource
+     * @param labelsPerOperation   additional {@code @httpLabel} segments per operation, the last one is greedy
+     * @param apiOperations        number of operations bound directly to the service
+     */
+    static Model create(int resources, int operationsPerResource, int labelsPerOperation, int apiOperations) {
+        StringBuilder idl = new StringBuilder();
+        idl.append("$version: \"2.0\"\n");
+        idl.append("namespace ").append(NAMESPACE).append("\n\n");
+
+        idl.append("service ").append(SERVICE.getName()).append(" {\n");
+        idl.append("    version: \"1\"\n");
+        idl.append("    resources: [");
+        for (int r = 0; r < resources; r++) {
+            idl.append(r == 0 ? "" : ", ").append(resourceName(r));
+        }
+        idl.append("]\n");
+        idl.append("    operations: [");
+        for (int a = 0; a < apiOperations; a++) {
+            idl.append(a == 0 ? "" : ", ").append("ApiOperation").append(a);
+        }
+        idl.append("]\n");
+        idl.append("}\n\n");
+
+        for (int r = 0; r < resources; r++) {
+            var identifier = identifierName(r);
+            idl.append("resource ").append(resourceName(r)).append(" {\n");
+            idl.append("    identifiers: { ").append(identifier).append(": String }\n");
+            idl.append("    operations: [");
+            for (int o = 0; o < operationsPerResource; o++) {
+                idl.append(o == 0 ? "" : ", ").append(operationName(r, o));
+            }
+            idl.append("]\n");
+            idl.append("}\n\n");
+
+            for (int o = 0; o < operationsPerResource; o++) {
+                appendOperation(idl, operationName(r, o), "/" + resourceName(r).toLowerCase() + "/{" + identifier + "}/op" + o, identifier, labelsPerOperation, o % 2 == 0);
+            }
+        }
+
+        for (int a = 0; a < apiOperations; a++) {
+            appendOperation(idl, "ApiOperation" + a, "/api/op" + a, null, labelsPerOperation, a % 2 == 0);
+        }
+
+        return Model.assembler()
+                .addUnparsedModel("synthetic.smithy", idl.toString())
+                .assemble()
+                .unwrap();
+    }
+
+    private static void appendOperation(StringBuilder idl, String name, String uriPrefix, String identifier, int labels, boolean readonly) {
+        StringBuilder uri = new StringBuilder(uriPrefix);
+        for (int l = 0; l < labels; l++) {
+            uri.append("/{label").append(l).append(l == labels - 1 ? "+}" : "}");
+        }
+
+        if (readonly) {
+            idl.append("@readonly\n");
+        }
+        idl.append("@http(method: \"").append(readonly ? "GET" : "POST").append("\", uri: \"").append(uri).append("\")\n");
+        idl.append("operation ").append(name).append(" {\n");
+        idl.append("    input := {\n");
+        if (identifier != null) {
+            idl.append("        @required\n        @httpLabel\n        ").append(identifier).append(": String\n");
+        }
+        for (int l = 0; l < labels; l++) {
+            idl.append("        @required\n        @httpLabel\n        label").append(l).append(": String\n");
+        }
+        idl.append("    }\n");
+        idl.append("    output := {}\n");
+        idl.append("}\n\n");
+    }
+
+    private static String resourceName(int index) {
+        return "BenchResource" + index;
+    }
+
+    private static String identifierName(int index) {
+        return "benchResource" + index + "Id";
+    }
+
+    private static String operationName(int resource, int operation) {
+        return "DoBenchResource" + resource + "Operation" + operation;
+    }
+}
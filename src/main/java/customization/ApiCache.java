@@ -0,0 +1,103 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.HttpHeaderTrait;
+import software.amazon.smithy.model.traits.HttpLabelTrait;
+import software.amazon.smithy.model.traits.HttpQueryParamsTrait;
+import software.amazon.smithy.model.traits.HttpQueryTrait;
+import software.amazon.smithy.model.traits.HttpTrait;
+import software.amazon.smithy.model.traits.ReadonlyTrait;
+
+/**
+ * API Gateway (REST) response caching of a {@code @readonly} or GET operation.
+ */
+final class ApiCache {
+
+    static final ShapeId TRAIT_ID = ShapeId.from("smithy4sst#apiCache");
+    static final ShapeId CACHE_KEY_TRAIT_ID = ShapeId.from("smithy4sst#cacheKey");
+
+    private final Integer ttl;
+    private final List<String> keyParameters;
+    private final String queryParamsMember;
+
+    private ApiCache(Integer ttl, List<String> keyParameters, String queryParamsMember) {
+        this.ttl = ttl;
+        this.keyParameters = keyParameters;
+        this.queryParamsMember = queryParamsMember;
+    }
+
+    /**
+     * @return the cache settings, empty if the operation is neither {@code @readonly} nor a GET
+     * @throws CodegenException if such an operation has the {@code smithy4sst#apiCache} trait
+     */
+    static Optional<ApiCache> resolve(Model model, OperationShape operation, HttpTrait httpTrait) {
+        if (!operation.hasTrait(ReadonlyTrait.class) && !"GET".equals(httpTrait.getMethod())) {
+            if (operation.hasTrait(TRAIT_ID)) {
+                throw new CodegenException(operation.getId() + " has the " + TRAIT_ID + " trait, but only @readonly and GET operations are cached");
+            }
+            return Optional.empty();
+        }
+
+        Integer ttl = operation.findTrait(TRAIT_ID)
+                .flatMap(trait -> trait.toNode().expectObjectNode().getNumberMember("ttl"))
+                .map(ttlNode -> ttlNode.getValue().intValue())
+                .orElse(null);
+
+        // Key parameters follow the member order of the input structure
+        List<String> keyParameters = new ArrayList<>();
+        List<String> queryParamsMembers = new ArrayList<>(1);
+        model.getShape(operation.getInputShape()).ifPresent(input -> {
+            for (var member : input.members()) {
+                if (member.hasTrait(HttpQueryParamsTrait.class)) {
+                    queryParamsMembers.add(member.getMemberName());
+                }
+                if (member.hasTrait(HttpLabelTrait.class)) {
+                    keyParameters.add("method.request.path." + member.getMemberName());
+                } else if (member.hasTrait(HttpQueryTrait.class)) {
+                    keyParameters.add("method.request.querystring." + member.expectTrait(HttpQueryTrait.class).getValue());
+                } else if (member.hasTrait(HttpHeaderTrait.class) && member.findTrait(CACHE_KEY_TRAIT_ID).isPresent()) {
+                    keyParameters.add("method.request.header." + member.expectTrait(HttpHeaderTrait.class).getValue());
+                }
+            }
+        });
+        return Optional.of(new ApiCache(ttl, Collections.unmodifiableList(keyParameters), queryParamsMembers.isEmpty() ? null : queryParamsMembers.getFirst()));
+    }
+
+    /**
+     * API Gateway can only add named query parameters to the cache key, requests differing only in the parameters of an
+     * {@code @httpQueryParams} member would share one cached response.
+     *
+     * @param operation a cached operation
+     * @throws CodegenException if the operation has an {@code @httpQueryParams} member
+     */
+    void validate(OperationReference operation) {
+        if (queryParamsMember != null) {
+            throw new CodegenException(operation.getShapeId() + " is cached, but its @httpQueryParams member " + queryParamsMember
+                    + " can not be part of the API Gateway cache key, disable its cache with @apiCache(ttl: 0)");
+        }
+    }
+
+    /**
+     * @return the ttl in seconds of the {@code smithy4sst#apiCache} trait or {@code defaultTtl}, 0 means disabled
+     */
+    int getTtl(int defaultTtl) {
+        return ttl != null ? ttl : defaultTtl;
+    }
+
+    List<String> getKeyParameters() {
+        return keyParameters;
+    }
+
+    @Override
+    public String toString() {
+        return ttl + " " + keyParameters + (queryParamsMember != null ? " " + queryParamsMember : "");
+    }
+}
@@ -0,0 +1,223 @@
+package customization;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import software.amazon.smithy.typescript.codegen.CodegenUtils;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Generates {@code handlers/bench.ts}, a local load-test harness if {@link RouteCustomizerSettings#isBench()} is enabled.
+ * <p>
+ * It synthesizes an API Gateway event for every routed operation, with sample values for the labels, and invokes the
+ * handlers built by the {@code <op>HandlerBuilder}s in-process. It reports requests per second, p50 and p99 latency and
+ * heap growth per operation. Streaming operations are not benchmarked, their handlers need a response stream.
+ */
+final class BenchGenerator {
+
+    private BenchGenerator() {
+    }
+
+    static Path getHarnessPath() {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "bench.ts");
+    }
+
+    static void writeHarness(OperationCatalog catalog, RouteCustomizerSettings.ApiTarget apiTarget, AbstractCodeWriter<?> writer) {
+        var handlerType = apiTarget.getHandlerType();
+        var eventType = apiTarget.getEventType();
+        var operations = RouterGenerator.getRoutedOperations(catalog.getOperations());
+        var operationUnion = operations.stream()
+                .map(operation -> "'" + operation.getOperationName() + "'")
+                .collect(Collectors.joining(" | "));
+
+        writer.write("import { $L, $L, Context } from 'aws-lambda';", eventType, handlerType);
+        writer.write("import { performance } from 'perf_hooks';");
+
+        writer.write("export type BenchOperation = { operationName: string, method: string, resource: string, path: string, pathParameters: Record<string, string> };");
+        writer.write("export type BenchRequest = { path?: string, pathParameters?: Record<string, string>, queryStringParameters?: Record<string, string>, headers?: Record<string, string>, body?: string };");
+        writer.write("export type BenchHandlers = Partial<Record<$L, $L>>;", operations.isEmpty() ? "never" : operationUnion, handlerType);
+        writer.openBlock("export type BenchOptions = {");
+        writer.write("requests?: number,");
+        writer.write("warmUpRequests?: number,");
+        writer.write("concurrency?: number,");
+        RouteCustomizer.writeDocs(writer, "Replaces parts of the synthesized request of an operation, e.g. a body which passes validation");
+        writer.write("overrides?: Partial<Record<keyof BenchHandlers, BenchRequest>>,");
+        writer.closeBlock("};");
+        writer.write("export type BenchResult = { operationName: string, requests: number, errors: number, requestsPerSecond: number, p50Millis: number, p99Millis: number, heapGrowthBytes: number };");
+
+        writer.openBlock("export const benchOperations: BenchOperation[] = [");
+        for (var operation : operations) {
+            writeBenchOperation(operation, writer);
+        }
+        writer.closeBlock("];");
+
+        writer.openBlock("const context = {");
+        writer.write("callbackWaitsForEmptyEventLoop: false,");
+        writer.write("functionName: 'bench',");
+        writer.write("functionVersion: '1',");
+        writer.write("invokedFunctionArn: 'arn:aws:lambda:us-east-1:000000000000:function:bench',");
+        writer.write("memoryLimitInMB: '1024',");
+        writer.write("awsRequestId: 'bench',");
+        writer.write("logGroupName: 'bench',");
+        writer.write("logStreamName: 'bench',");
+        writer.write("getRemainingTimeInMillis: () => 30000,");
+        writer.closeBlock("} as Context;");
+
+        writeToEvent(apiTarget, writer);
+
+        writer.openBlock("function invoke(handler: $L, event: $L): Promise<any> {", handlerType, eventType);
+        writer.openBlock("return new Promise((resolve, reject) => {");
+        writer.write("const result = handler(event, context, (error, response) => error ? reject(error) : resolve(response)) as Promise<any> | undefined;");
+        writer.openBlock("if (result) {");
+        writer.write("result.then(resolve, reject);");
+        writer.closeBlock("}");
+        writer.closeBlock("});");
+        writer.closeBlock("}");
+
+        RouteCustomizer.writeDocs(writer, "Only effective if node runs with --expose-gc, otherwise the heap growth includes garbage");
+        writer.openBlock("function collectGarbage() {");
+        writer.write("(globalThis as any).gc?.();");
+        writer.closeBlock("}");
+
+        writer.openBlock("function percentile(sorted: Float64Array, p: number): number {");
+        writer.write("return sorted.length === 0 ? 0 : sorted[Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];");
+        writer.closeBlock("}");
+
+        writer.openBlock("async function benchOperation(operation: BenchOperation, handler: $L, options: BenchOptions): Promise<BenchResult> {", handlerType);
+        writer.write("const event = toEvent(operation, options.overrides?.[operation.operationName as keyof BenchHandlers]);");
+        writer.write("const requests = options.requests ?? 1000;");
+        writer.openBlock("for (let i = 0; i < (options.warmUpRequests ?? 100); i++) {");
+        writer.write("await invoke(handler, structuredClone(event)).catch(() => undefined);");
+        writer.closeBlock("}");
+        writer.write("collectGarbage();");
+        writer.write("const heapBefore = process.memoryUsage().heapUsed;");
+        writer.write("const latencies = new Float64Array(requests);");
+        writer.write("let next = 0;");
+        writer.write("let errors = 0;");
+        writer.openBlock("const worker = async () => {");
+        writer.openBlock("while (next < requests) {");
+        writer.write("const index = next++;");
+        writer.write("const request = structuredClone(event);");
+        writer.write("const start = performance.now();");
+        writer.openBlock("try {");
+        writer.write("const response = await invoke(handler, request);");
+        writer.write("const statusCode = typeof response === 'string' ? 200 : response?.statusCode;");
+        writer.openBlock("if (!(statusCode < 400)) {");
+        writer.write("errors++;");
+        writer.closeBlock("}");
+        writer.closeBlock("} catch {");
+        writer.indent();
+        writer.write("errors++;");
+        writer.closeBlock("}");
+        writer.write("latencies[index] = performance.now() - start;");
+        writer.closeBlock("}");
+        writer.closeBlock("};");
+        writer.write("const start = performance.now();");
+        writer.write("await Promise.all(Array.from({ length: options.concurrency ?? 10 }, worker));");
+        writer.write("const elapsed = performance.now() - start;");
+        writer.write("collectGarbage();");
+        writer.write("const heapGrowthBytes = process.memoryUsage().heapUsed - heapBefore;");
+        writer.write("latencies.sort();");
+        writer.openBlock("return {");
+        writer.write("operationName: operation.operationName,");
+        writer.write("requests,");
+        writer.write("errors,");
+        writer.write("requestsPerSecond: requests / (elapsed / 1000),");
+        writer.write("p50Millis: percentile(latencies, 0.5),");
+        writer.write("p99Millis: percentile(latencies, 0.99),");
+        writer.write("heapGrowthBytes,");
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+
+        RouteCustomizer.writeDocs(writer, "Benchmarks the given handlers one operation after the other, requests of an operation run on concurrent workers of the event loop. Responses with a status code of 400 or above count as errors");
+        writer.openBlock("export async function runBench(handlers: BenchHandlers, options: BenchOptions = {}): Promise<BenchResult[]> {");
+        writer.write("const results: BenchResult[] = [];");
+        writer.openBlock("for (const operation of benchOperations) {");
+        writer.write("const handler = handlers[operation.operationName as keyof BenchHandlers];");
+        writer.openBlock("if (handler) {");
+        writer.write("results.push(await benchOperation(operation, handler, options));");
+        writer.closeBlock("}");
+        writer.closeBlock("}");
+        writer.write("return results;");
+        writer.closeBlock("}");
+
+        writer.openBlock("export function printBenchResults(results: BenchResult[]) {");
+        writer.openBlock("console.table(results.map((result) => ({");
+        writer.write("operation: result.operationName,");
+        writer.write("'req/s': Math.round(result.requestsPerSecond),");
+        writer.write("'p50 ms': result.p50Millis.toFixed(3),");
+        writer.write("'p99 ms': result.p99Millis.toFixed(3),");
+        writer.write("'heap growth KiB': Math.round(result.heapGrowthBytes / 1024),");
+        writer.write("errors: result.errors,");
+        writer.closeBlock("})));");
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Writes the operation with {@code bench-<label>} as value of every label, greedy labels get two segments.
+     */
+    private static void writeBenchOperation(OperationReference operation, AbstractCodeWriter<?> writer) {
+        List<String> segments = new ArrayList<>();
+        List<String> pathParameters = new ArrayList<>();
+        for (var segment : operation.getUri().split("/")) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                var greedy = segment.endsWith("+}");
+                var label = segment.substring(1, segment.length() - (greedy ? 2 : 1));
+                var value = greedy ? "bench/" + label : "bench-" + label;
+                segments.add(value);
+                pathParameters.add(label + ": '" + value + "'");
+            } else {
+                segments.add(segment);
+            }
+        }
+        var path = String.join("/", segments);
+        writer.write("{ operationName: '$L', method: '$L', resource: '$L', path: '$L', pathParameters: { $L } },",
+                operation.getOperationName(), operation.getMethod(), operation.getUri(), path.isEmpty() ? "/" : path, String.join(", ", pathParameters));
+    }
+
+    /**
+     * Writes {@code toEvent}, which synthesizes the proxy event API Gateway would send for an operation.
+     */
+    private static void writeToEvent(RouteCustomizerSettings.ApiTarget apiTarget, AbstractCodeWriter<?> writer) {
+        var eventType = apiTarget.getEventType();
+        writer.openBlock("function toEvent(operation: BenchOperation, request: BenchRequest = {}): $L {", eventType);
+        writer.write("const path = request.path ?? operation.path;");
+        writer.write("const headers = { 'content-type': 'application/json', host: 'localhost', ...request.headers };");
+        writer.write("const hasBody = !['GET', 'HEAD', 'DELETE'].includes(operation.method);");
+        writer.openBlock("return {");
+        switch (apiTarget) {
+            case REST -> {
+                writer.write("resource: operation.resource,");
+                writer.write("path,");
+                writer.write("httpMethod: operation.method,");
+                writer.write("headers,");
+                writer.write("multiValueHeaders: Object.fromEntries(Object.entries(headers).map(([key, value]) => [key, [value]])),");
+                writer.write("queryStringParameters: request.queryStringParameters ?? null,");
+                writer.write("multiValueQueryStringParameters: request.queryStringParameters ? Object.fromEntries(Object.entries(request.queryStringParameters).map(([key, value]) => [key, [value]])) : null,");
+                writer.write("pathParameters: request.pathParameters ?? operation.pathParameters,");
+                writer.write("stageVariables: null,");
+                writer.write("requestContext: { httpMethod: operation.method, path, resourcePath: operation.resource, stage: 'bench', requestId: 'bench' } as $L['requestContext'],", eventType);
+                writer.write("body: request.body ?? (hasBody ? '{}' : null),");
+                writer.write("isBase64Encoded: false,");
+            }
+            case HTTP -> {
+                writer.write("version: '2.0',");
+                writer.write("routeKey: operation.method + ' ' + operation.resource,");
+                writer.write("rawPath: path,");
+                writer.write("rawQueryString: new URLSearchParams(request.queryStringParameters).toString(),");
+                writer.write("headers,");
+                writer.write("queryStringParameters: request.queryStringParameters,");
+                writer.write("pathParameters: request.pathParameters ?? operation.pathParameters,");
+                writer.write("requestContext: { http: { method: operation.method, path, protocol: 'HTTP/1.1', sourceIp: '127.0.0.1', userAgent: 'bench' }, "
+                        + "routeKey: operation.method + ' ' + operation.resource, stage: 'bench', requestId: 'bench', timeEpoch: Date.now() } as $L['requestContext'],", eventType);
+                writer.write("body: request.body ?? (hasBody ? '{}' : undefined),");
+                writer.write("isBase64Encoded: false,");
+            }
+        }
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+    }
+}
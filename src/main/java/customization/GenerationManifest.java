@@ -0,0 +1,250 @@
+package customization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import software.amazon.smithy.model.node.ArrayNode;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.node.StringNode;
+
+/**
+ * Content hash manifest of the files generated by the {@link RouteCustomizer}.
+ * <p>
+ * Stores a fingerprint of every operation's inputs (shape id, http method and uri, resource membership) and the
+ * hash of every generated file. On the next run resources whose operations are unchanged are not rendered again
+ * and files whose content did not change are not rewritten, so their modification time stays untouched for
+ * tsc, esbuild and SST change detection.
+ */
+final class GenerationManifest {
+
+    static final String FILE_NAME = ".route-customizer-manifest.json";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final boolean enabled;
+    private final Path baseDir;
+    private final String generatorFingerprint;
+    private final boolean generatorChanged;
+    private final Map<String, String> previousOperations;
+    private final Map<String, List<String>> previousResources;
+    private final Map<String, String> previousFiles;
+    private final Map<String, String> operations = new TreeMap<>();
+    private final Map<String, List<String>> resources = new TreeMap<>();
+    private final Map<String, String> files = new TreeMap<>();
+
+    private GenerationManifest(boolean enabled, Path baseDir, String generatorFingerprint, ObjectNode previous) {
+        this.enabled = enabled;
+        this.baseDir = baseDir;
+        this.generatorFingerprint = generatorFingerprint;
+        this.generatorChanged = previous.getNumberMemberOrDefault("version", 0).intValue() != FORMAT_VERSION
+                || !generatorFingerprint.equals(previous.getStringMemberOrDefault("generator", ""));
+        this.previousOperations = toStringMap(previous.getObjectMember("operations").orElse(Node.objectNode()));
+        this.previousFiles = toStringMap(previous.getObjectMember("files").orElse(Node.objectNode()));
+        this.previousResources = new TreeMap<>();
+        previous.getObjectMember("resources").orElse(Node.objectNode()).getStringMap().forEach((name, ids) ->
+                previousResources.put(name, ids.expectArrayNode().getElementsAs(StringNode::getValue)));
+    }
+
+    /**
+     * Loads the manifest of the previous run from {@code baseDir}, a missing or unreadable manifest regenerates everything.
+     *
+     * @param generatorFingerprint identifies the generator configuration, if it changes every file is regenerated
+     */
+    static GenerationManifest load(Path baseDir, String generatorFingerprint) {
+        ObjectNode previous = Node.objectNode();
+        var manifestFile = baseDir.resolve(FILE_NAME);
+        if (Files.isRegularFile(manifestFile)) {
+            try {
+                previous = Node.parse(Files.readString(manifestFile)).asObjectNode().orElse(previous);
+            } catch (IOException | RuntimeException e) {
+                previous = Node.objectNode();
+            }
+        }
+        return new GenerationManifest(true, baseDir, generatorFingerprint, previous);
+    }
+
+    /**
+     * @return a manifest that treats every resource and file as changed and persists nothing
+     */
+    static GenerationManifest disabled() {
+        return new GenerationManifest(false, null, "", Node.objectNode());
+    }
+
+    /**
+     * Records the operations of a resource and checks if its previously generated files can be kept as they are.
+     *
+     * @param paths all files generated only from the operations of this resource
+     * @return {@code true} if neither the operations nor the files on disk changed since the last run
+     */
+    boolean isUpToDate(String resourceName, List<OperationReference> operations, List<String> paths) {
+        if (!enabled) {
+            return false;
+        }
+        var operationIds = operations.stream().map(operation -> operation.getShapeId().toString()).toList();
+        resources.put(resourceName, operationIds);
+        for (var operation : operations) {
+            this.operations.put(operation.getShapeId().toString(), fingerprint(operation));
+        }
+
+        if (generatorChanged || !operationIds.equals(previousResources.get(resourceName))) {
+            return false;
+        }
+        for (var operation : operations) {
+            var id = operation.getShapeId().toString();
+            if (!Objects.equals(previousOperations.get(id), this.operations.get(id))) {
+                return false;
+            }
+        }
+        for (var path : paths) {
+            var previousHash = previousFiles.get(path);
+            if (previousHash == null || !previousHash.equals(hashOnDisk(path))) {
+                return false;
+            }
+        }
+        paths.forEach(path -> files.put(path, previousFiles.get(path)));
+        return true;
+    }
+
+    /**
+     * Records the hash of a generated file.
+     *
+     * @return {@code false} if the file on disk already has exactly this content
+     */
+    boolean needsWrite(RouteCustomizer.GeneratedFile file) {
+        if (!enabled) {
+            return true;
+        }
+        var hash = hash(file.getContent());
+        files.put(file.getPath(), hash);
+        return generatorChanged || !hash.equals(previousFiles.get(file.getPath())) || !hash.equals(hashOnDisk(file.getPath()));
+    }
+
+    /**
+     * Persists the manifest and removes files of the previous run which are no longer generated. Only files inside
+     * {@code baseDir} whose content is still the one recorded by the previous run are removed, so neither a tampered
+     * manifest nor a file edited by hand leads to a deleted file.
+     */
+    void save() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (var entry : previousFiles.entrySet()) {
+                var file = resolve(entry.getKey());
+                if (file != null && !files.containsKey(entry.getKey()) && entry.getValue().equals(hashOnDisk(entry.getKey()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            var resourcesNode = Node.objectNodeBuilder();
+            resources.forEach((name, ids) -> resourcesNode.withMember(name, ArrayNode.fromStrings(ids)));
+            var node = Node.objectNodeBuilder()
+                    .withMember("version", FORMAT_VERSION)
+                    .withMember("generator", generatorFingerprint)
+                    .withMember("operations", toNode(operations))
+                    .withMember("resources", resourcesNode.build())
+                    .withMember("files", toNode(files))
+                    .build();
+            Files.createDirectories(baseDir);
+            Files.writeString(baseDir.resolve(FILE_NAME), Node.prettyPrintJson(node) + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + FILE_NAME, e);
+        }
+    }
+
+    /**
+     * @return the file of a path relative to {@code baseDir}, {@code null} if the path points outside of it
+     */
+    private Path resolve(String path) {
+        var root = baseDir.toAbsolutePath().normalize();
+        var file = root.resolve(path).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+
+    private String hashOnDisk(String path) {
+        var file = resolve(path);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return hash(Files.readString(file));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static String fingerprint(OperationReference operation) {
+        return hash(String.join("\n",
+                operation.getShapeId().toString(),
+                operation.getMethod(),
+                operation.getUri(),
+                operation.getParentResource(),
+                operation.getHandlerPath(),
+                operation.getFunctionId(),
+                operation.getTuning().toString(),
+                operation.getCache().map(Object::toString).orElse(""),
+                String.valueOf(operation.isStreaming())));
+    }
+
+    static String hash(String content) {
+        return HEX.formatHex(newDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return hash of the jar or class files the generator was loaded from, it changes with every build of the
+     * customizer even if its version does not
+     */
+    static String hashGenerator() {
+        try {
+            var location = Path.of(GenerationManifest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            var digest = newDigest();
+            if (Files.isDirectory(location)) {
+                List<Path> classFiles;
+                try (var paths = Files.walk(location)) {
+                    classFiles = paths.filter(path -> path.toString().endsWith(".class")).sorted().toList();
+                }
+                for (var classFile : classFiles) {
+                    digest.update(Files.readAllBytes(classFile));
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+            return HEX.formatHex(digest.digest());
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // Classes not loaded from the file system, fall back to the version and settings
+            return "unknown";
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> toStringMap(ObjectNode node) {
+        Map<String, String> result = new TreeMap<>();
+        node.getStringMap().forEach((key, value) -> result.put(key, value.expectStringNode().getValue()));
+        return result;
+    }
+
+    private static ObjectNode toNode(Map<String, String> values) {
+        var builder = Node.objectNodeBuilder();
+        values.forEach((key, value) -> builder.withMember(key, value));
+        return builder.build();
+    }
+}
@@ -0,0 +1,168 @@
+package customization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+
+/**
+ * Phase timings, counts and file sizes of one {@link RouteCustomizer} run, written as
+ * {@code route-customizer-report.json} next to the generated sources if {@link RouteCustomizerSettings#isReport()} is enabled.
+ * <p>
+ * Phases may run on several threads while resources are rendered in parallel, their times are summed over all threads
+ * and can therefore exceed {@code totalMillis}.
+ */
+final class GenerationReport {
+
+    static final String FILE_NAME = "route-customizer-report.json";
+
+    private final boolean enabled;
+    private final String service;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, LongAdder> phaseNanos = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> resourceBytes = new ConcurrentHashMap<>();
+    private final Map<String, ObjectNode> files = new TreeMap<>();
+    private int services;
+    private int operations;
+    private int resources;
+    private int renderedResources;
+    private int writtenFiles;
+    private long totalBytes;
+
+    private GenerationReport(boolean enabled, String service) {
+        this.enabled = enabled;
+        this.service = service;
+    }
+
+    static GenerationReport start(String service) {
+        return new GenerationReport(true, service);
+    }
+
+    /**
+     * @return a report that measures nothing and writes nothing
+     */
+    static GenerationReport disabled() {
+        return new GenerationReport(false, "");
+    }
+
+    /**
+     * Runs {@code action} and adds its duration to {@code phase}, safe to call from several threads.
+     */
+    <T> T time(String phase, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        var start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            phaseNanos.computeIfAbsent(phase, key -> new LongAdder()).add(System.nanoTime() - start);
+        }
+    }
+
+    void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the catalogs of the service of the SSDK and of the additional services.
+     */
+    void recordCatalogs(List<OperationCatalog> catalogs) {
+        services = catalogs.size();
+        for (var catalog : catalogs) {
+            operations += catalog.getOperations().size();
+            resources += catalog.getResources().size();
+        }
+    }
+
+    /**
+     * Records the files rendered for a resource, safe to call from several threads.
+     */
+    void recordResource(String resourceName, Iterable<RouteCustomizer.GeneratedFile> resourceFiles) {
+        if (!enabled) {
+            return;
+        }
+        var bytes = resourceBytes.computeIfAbsent(resourceName, key -> new LongAdder());
+        for (var file : resourceFiles) {
+            bytes.add(size(file));
+        }
+    }
+
+    void recordFile(RouteCustomizer.GeneratedFile file, boolean written) {
+        if (!enabled) {
+            return;
+        }
+        var bytes = size(file);
+        totalBytes += bytes;
+        if (written) {
+            writtenFiles++;
+        }
+        files.put(file.getPath(), Node.objectNodeBuilder()
+                .withMember("bytes", bytes)
+                .withMember("written", written)
+                .build());
+    }
+
+    void setRenderedResources(int renderedResources) {
+        this.renderedResources = renderedResources;
+    }
+
+    /**
+     * Writes the report to {@code baseDir}, replacing the report of the previous run.
+     */
+    void save(Path baseDir) {
+        if (!enabled) {
+            return;
+        }
+        var phases = Node.objectNodeBuilder();
+        new TreeMap<>(phaseNanos).forEach((phase, nanos) -> phases.withMember(phase, toMillis(nanos.sum())));
+        var bytesPerResource = Node.objectNodeBuilder();
+        new TreeMap<>(resourceBytes).forEach((name, bytes) -> bytesPerResource.withMember(name, bytes.sum()));
+        var filesNode = Node.objectNodeBuilder();
+        files.forEach(filesNode::withMember);
+
+        var node = Node.objectNodeBuilder()
+                .withMember("service", service)
+                .withMember("timestamp", Instant.now().toString())
+                .withMember("totalMillis", toMillis(System.nanoTime() - startNanos))
+                .withMember("phaseMillis", phases.build())
+                .withMember("services", services)
+                .withMember("operations", operations)
+                .withMember("resources", resources)
+                .withMember("renderedResources", renderedResources)
+                .withMember("files", files.size())
+                .withMember("writtenFiles", writtenFiles)
+                .withMember("bytes", totalBytes)
+                .withMember("resourceBytes", bytesPerResource.build())
+                .withMember("fileBytes", filesNode.build())
+                .build();
+        try {
+            Files.createDirectories(baseDir);
+            Files.writeString(baseDir.resolve(FILE_NAME), Node.prettyPrintJson(node) + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + FILE_NAME, e);
+        }
+    }
+
+    private static long size(RouteCustomizer.GeneratedFile file) {
+        return file.getContent().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,129 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Resolved {@code smithy4sst#lambdaTuning} of an operation, see {@code META-INF/smithy/smithy4sst.smithy}.
+ */
+final class LambdaTuning {
+
+    static final ShapeId TRAIT_ID = ShapeId.from("smithy4sst#lambdaTuning");
+
+    static final LambdaTuning EMPTY = new LambdaTuning(null, null, null, null, null);
+
+    private final Integer memory;
+    private final String architecture;
+    private final Integer timeout;
+    private final Integer provisionedConcurrency;
+    private final Integer reservedConcurrency;
+
+    private LambdaTuning(Integer memory, String architecture, Integer timeout, Integer provisionedConcurrency, Integer reservedConcurrency) {
+        this.memory = memory;
+        this.architecture = architecture;
+        this.timeout = timeout;
+        this.provisionedConcurrency = provisionedConcurrency;
+        this.reservedConcurrency = reservedConcurrency;
+    }
+
+    /**
+     * Merges the traits of the given shapes, members of later shapes override the ones of earlier shapes.
+     *
+     * @param shapes from the least to the most specific shape, e.g. service, resource, operation
+     */
+    static LambdaTuning resolve(List<? extends Shape> shapes) {
+        var tuning = EMPTY;
+        for (var shape : shapes) {
+            var trait = shape.findTrait(TRAIT_ID);
+            if (trait.isPresent()) {
+                tuning = tuning.merge(trait.get().toNode().expectObjectNode());
+            }
+        }
+        return tuning;
+    }
+
+    /**
+     * Combines the settings of operations served by one shared function: the largest memory, timeout and concurrency
+     * and the architecture set by any of the operations.
+     *
+     * @param functionId the shared function, only used in the error message
+     * @throws CodegenException if the operations set different architectures
+     */
+    static LambdaTuning combine(String functionId, List<OperationReference> operations) {
+        var combined = EMPTY;
+        OperationReference architectureOperation = null;
+        for (var operation : operations) {
+            var tuning = operation.getTuning();
+            if (tuning.architecture != null && combined.architecture != null && !tuning.architecture.equals(combined.architecture)) {
+                throw new CodegenException("Operations " + architectureOperation.getShapeId() + " (" + combined.architecture + ") and "
+                        + operation.getShapeId() + " (" + tuning.architecture + ") are served by the function " + functionId
+                        + " but set different architectures in @lambdaTuning");
+            }
+            if (combined.architecture == null && tuning.architecture != null) {
+                architectureOperation = operation;
+            }
+            combined = new LambdaTuning(
+                    max(combined.memory, tuning.memory),
+                    combined.architecture != null ? combined.architecture : tuning.architecture,
+                    max(combined.timeout, tuning.timeout),
+                    max(combined.provisionedConcurrency, tuning.provisionedConcurrency),
+                    max(combined.reservedConcurrency, tuning.reservedConcurrency)
+            );
+        }
+        return combined;
+    }
+
+    private static Integer max(Integer a, Integer b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Math.max(a, b);
+    }
+
+    private LambdaTuning merge(ObjectNode node) {
+        return new LambdaTuning(
+                node.getNumberMember("memory").map(n -> n.getValue().intValue()).orElse(memory),
+                node.getStringMember("architecture").map(s -> s.getValue()).orElse(architecture),
+                node.getNumberMember("timeout").map(n -> n.getValue().intValue()).orElse(timeout),
+                node.getNumberMember("provisionedConcurrency").map(n -> n.getValue().intValue()).orElse(provisionedConcurrency),
+                node.getNumberMember("reservedConcurrency").map(n -> n.getValue().intValue()).orElse(reservedConcurrency)
+        );
+    }
+
+    boolean isEmpty() {
+        return memory == null && architecture == null && timeout == null && provisionedConcurrency == null && reservedConcurrency == null;
+    }
+
+    /**
+     * @return the members of the generated {@code LambdaTuning} type, e.g. {@code memorySize: 1024, architecture: 'arm_64'}
+     */
+    String toTypeScript() {
+        List<String> members = new ArrayList<>(5);
+        if (memory != null) {
+            members.add("memorySize: " + memory);
+        }
+        if (architecture != null) {
+            members.add("architecture: '" + architecture + "'");
+        }
+        if (timeout != null) {
+            members.add("timeout: '" + timeout + " seconds'");
+        }
+        if (provisionedConcurrency != null) {
+            members.add("provisionedConcurrency: " + provisionedConcurrency);
+        }
+        if (reservedConcurrency != null) {
+            members.add("reservedConcurrency: " + reservedConcurrency);
+        }
+        return String.join(", ", members);
+    }
+
+    @Override
+    public String toString() {
+        return toTypeScript();
+    }
+}
@@ -0,0 +1,97 @@
+package customization;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import software.amazon.smithy.typescript.codegen.CodegenUtils;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Generates the metrics runtime used by the handler builders if {@link RouteCustomizerSettings#isMetrics()} is enabled.
+ * The metrics are written as CloudWatch embedded metric format to stdout, so the bundles need no metrics SDK.
+ */
+final class MetricsGenerator {
+
+    private MetricsGenerator() {
+    }
+
+    static Path getRuntimePath() {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "metrics.ts");
+    }
+
+    /**
+     * Writes {@code createOperationMetrics}, which times the operation passed to the SSDK and wraps the gateway handler.
+     * Its {@code functionId} is the function serving the operation, the router function in router deployments.
+     * The time spent outside of the operation is reported as serialization time, it also covers validation and routing.
+     */
+    static void writeRuntime(String namespace, AbstractCodeWriter<?> writer) {
+        writer.write("import { Context } from 'aws-lambda';");
+        writer.write("import { AsyncLocalStorage } from 'async_hooks';");
+        writer.write("let coldStart = true;");
+        RouteCustomizer.writeDocs(writer, "Time spent in the operation by the current invocation, concurrent invocations in one process each get their own");
+        writer.write("const invocations = new AsyncLocalStorage<{ operationTime: number }>();");
+
+        writer.openBlock("const metricDefinitions = [");
+        writer.write("{ Name: 'Latency', Unit: 'Milliseconds' },");
+        writer.write("{ Name: 'OperationTime', Unit: 'Milliseconds' },");
+        writer.write("{ Name: 'SerializationTime', Unit: 'Milliseconds' },");
+        writer.write("{ Name: 'ColdStart', Unit: 'Count' },");
+        writer.write("{ Name: 'RequestSize', Unit: 'Bytes' },");
+        writer.write("{ Name: 'ResponseSize', Unit: 'Bytes' },");
+        writer.closeBlock("];");
+
+        RouteCustomizer.writeDocs(writer, "Size of the body in bytes, string.length counts UTF-16 code units and the characters of the base64 encoding");
+        writer.openBlock("function byteLength(message: { body?: string | null, isBase64Encoded?: boolean } | undefined): number {");
+        writer.write("return message?.body ? Buffer.byteLength(message.body, message.isBase64Encoded ? 'base64' : 'utf8') : 0;");
+        writer.closeBlock("}");
+
+        writer.openBlock("export type OperationMetrics = {");
+        writer.write("timeOperation<F extends (...args: any[]) => Promise<any>>(operation: F): F;");
+        writer.write("instrument<H extends (event: any, context: Context, callback: any) => any>(handler: H): H;");
+        writer.closeBlock("};");
+
+        writer.openBlock("export function createOperationMetrics(functionId: string, operationName: string): OperationMetrics {");
+        writer.write("const directives = [{ Namespace: $S, Dimensions: [['functionId', 'operationName']], Metrics: metricDefinitions }];", namespace);
+        writer.openBlock("return {");
+        writer.openBlock("timeOperation: (operation) => (async (...args: any[]) => {");
+        writer.write("const start = performance.now();");
+        writer.openBlock("try {");
+        writer.write("return await operation(...args);");
+        writer.closeBlock("} finally {");
+        writer.indent();
+        writer.write("const invocation = invocations.getStore();");
+        writer.openBlock("if (invocation) {");
+        writer.write("invocation.operationTime += performance.now() - start;");
+        writer.closeBlock("}");
+        writer.closeBlock("}");
+        writer.closeBlock("}) as typeof operation,");
+        writer.openBlock("instrument: (handler) => (async (event: any, context: Context, callback: any) => {");
+        writer.write("const start = performance.now();");
+        writer.write("const isColdStart = coldStart;");
+        writer.write("coldStart = false;");
+        writer.write("const invocation = { operationTime: 0 };");
+        writer.write("let response: any;");
+        writer.openBlock("try {");
+        writer.write("response = await invocations.run(invocation, () => handler(event, context, callback));");
+        writer.write("return response;");
+        writer.closeBlock("} finally {");
+        writer.indent();
+        writer.write("const latency = performance.now() - start;");
+        writer.openBlock("process.stdout.write(JSON.stringify({");
+        writer.write("_aws: { Timestamp: Date.now(), CloudWatchMetrics: directives },");
+        writer.write("functionId,");
+        writer.write("operationName,");
+        writer.write("requestId: context.awsRequestId,");
+        writer.write("Latency: latency,");
+        writer.write("OperationTime: invocation.operationTime,");
+        writer.write("SerializationTime: latency - invocation.operationTime,");
+        writer.write("ColdStart: isColdStart ? 1 : 0,");
+        writer.write("RequestSize: byteLength(event),");
+        writer.write("ResponseSize: byteLength(response),");
+        writer.closeBlock("}) + '\\n');");
+        writer.closeBlock("}");
+        writer.closeBlock("}) as unknown as typeof handler,");
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+    }
+}
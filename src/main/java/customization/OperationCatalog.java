@@ -0,0 +1,246 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.TopDownIndex;
+import software.amazon.smithy.model.pattern.SmithyPattern;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.ResourceShape;
+import software.amazon.smithy.model.shapes.ServiceShape;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.HttpTrait;
+import software.amazon.smithy.model.traits.StreamingTrait;
+
+/**
+ * Immutable catalog of all HTTP bound operations of a service, grouped by the resource they are bound to.
+ * <p>
+ * The model is walked exactly once and every derived value (route path, handler path, function id, names)
+ * is computed up front, so the writers only iterate over precomputed references.
+ */
+final class OperationCatalog {
+
+    static final String API_RESOURCE = "api";
+
+    private final ShapeId service;
+    private final List<OperationReference> operations;
+    private final Map<String, List<OperationReference>> resources;
+    private final Map<ShapeId, OperationReference> byShapeId;
+    private final String operationUnion;
+
+    private OperationCatalog(ShapeId service, Map<String, List<OperationReference>> resources) {
+        this.service = service;
+        this.resources = resources;
+
+        List<OperationReference> all = new ArrayList<>();
+        Map<ShapeId, OperationReference> index = new HashMap<>();
+        StringBuilder union = new StringBuilder();
+        for (var resourceOperations : resources.values()) {
+            for (var operation : resourceOperations) {
+                all.add(operation);
+                index.put(operation.getShapeId(), operation);
+                if (!union.isEmpty()) {
+                    union.append(" | ");
+                }
+                union.append("'").append(operation.getOperationName()).append("'");
+            }
+        }
+        this.operations = Collections.unmodifiableList(all);
+        this.byShapeId = Collections.unmodifiableMap(index);
+        this.operationUnion = union.toString();
+    }
+
+    static OperationCatalog of(Model model, ShapeId service) {
+        return of(model, service, TopDownIndex.of(model), false);
+    }
+
+    /**
+     * Walks several services of the model with one shared {@link TopDownIndex}.
+     *
+     * @param responseStreaming whether operations with a {@code @streaming} blob output are streamed by a function URL
+     * @return the catalogs in the order of {@code services}
+     */
+    static List<OperationCatalog> of(Model model, List<ShapeId> services, boolean responseStreaming) {
+        var topDownIndex = TopDownIndex.of(model);
+        return services.stream().map(service -> of(model, service, topDownIndex, responseStreaming)).toList();
+    }
+
+    private static OperationCatalog of(Model model, ShapeId service, TopDownIndex topDownIndex, boolean responseStreaming) {
+        var serviceShape = model.expectShape(service, ServiceShape.class);
+        var containedResources = new TreeSet<>(topDownIndex.getContainedResources(service));
+        Map<String, List<OperationReference>> resources = new LinkedHashMap<>();
+        Set<ShapeId> resourceOperationShapes = new HashSet<>();
+        Map<String, ShapeId> resourceIds = new HashMap<>();
+
+        Map<ShapeId, ResourceShape> parents = new HashMap<>();
+        for (var resource : containedResources) {
+            for (var child : resource.getResources()) {
+                parents.put(child, resource);
+            }
+        }
+
+        // Sorted by shape id, so the generated output is stable between runs
+        for (var resource : containedResources) {
+            var resourceName = resource.getId().getName().toLowerCase();
+            // Resources are keyed by their name, e.g. a renamed resource of another namespace would replace the first one
+            var existing = resourceIds.putIfAbsent(resourceName, resource.getId());
+            if (existing != null) {
+                throw new CodegenException("Resources " + existing + " and " + resource.getId() + " of " + service
+                        + " are both generated as '" + resourceName + "', resource names must be unique within a service");
+            }
+            List<Shape> hierarchy = new ArrayList<>();
+            for (Shape current = resource; current != null; current = parents.get(current.getId())) {
+                hierarchy.addFirst(current);
+            }
+            hierarchy.addFirst(serviceShape);
+
+            List<OperationReference> resourceOperations = new ArrayList<>();
+            // Only direct operations, nested resources get their own entry
+            for (var operationId : new TreeSet<>(resource.getAllOperations())) {
+                resourceOperationShapes.add(operationId);
+                model.getShape(operationId)
+                        .flatMap(shape -> shape.asOperationShape())
+                        .flatMap(operation -> createReference(model, resourceName, operation, hierarchy, responseStreaming))
+                        .ifPresent(resourceOperations::add);
+            }
+            if (!resourceOperations.isEmpty()) {
+                resources.put(resourceName, Collections.unmodifiableList(resourceOperations));
+            }
+        }
+
+        // Only add "api" resource if there are "global" / api layer operations
+        List<OperationReference> apiOperations = new ArrayList<>();
+        for (var operation : new TreeSet<>(topDownIndex.getContainedOperations(service))) {
+            if (!resourceOperationShapes.contains(operation.getId())) {
+                createReference(model, API_RESOURCE, operation, List.of(serviceShape), responseStreaming).ifPresent(apiOperations::add);
+            }
+        }
+        if (!apiOperations.isEmpty()) {
+            resources.merge(API_RESOURCE, Collections.unmodifiableList(apiOperations), (existing, added) -> {
+                List<OperationReference> merged = new ArrayList<>(existing);
+                merged.addAll(added);
+                return Collections.unmodifiableList(merged);
+            });
+        }
+
+        return new OperationCatalog(service, Collections.unmodifiableMap(resources));
+    }
+
+    /**
+     * @param hierarchy the service and resources the operation is bound to, from the outermost to the innermost
+     */
+    private static Optional<OperationReference> createReference(Model model, String resourceName, OperationShape operation, List<Shape> hierarchy,
+                                                                 boolean responseStreaming) {
+        return operation.getTrait(HttpTrait.class).map(trait -> {
+            var operationName = operation.getId().getName();
+            var handlerPath = "services/functions/" + resourceName + "/application/handler/" + operationName.toLowerCase() + ".handler";
+            var lowerCasedName = Character.toLowerCase(operationName.charAt(0)) + operationName.substring(1);
+            List<Shape> tuningShapes = new ArrayList<>(hierarchy);
+            tuningShapes.add(operation);
+            return new OperationReference(
+                    operation.getId(),
+                    trait.getMethod(),
+                    getPath(trait.getUri().getSegments()),
+                    handlerPath,
+                    camelToKebabCase(operationName),
+                    lowerCasedName,
+                    resourceName,
+                    LambdaTuning.resolve(tuningShapes),
+                    ApiCache.resolve(model, operation, trait).orElse(null),
+                    responseStreaming && hasStreamingOutput(model, operation)
+            );
+        });
+    }
+
+    private static boolean hasStreamingOutput(Model model, OperationShape operation) {
+        return model.getShape(operation.getOutputShape()).stream()
+                .flatMap(output -> output.members().stream())
+                .flatMap(member -> model.getShape(member.getTarget()).stream())
+                .anyMatch(target -> target.isBlobShape() && target.hasTrait(StreamingTrait.class));
+    }
+
+    ShapeId getService() {
+        return service;
+    }
+
+    /**
+     * @return all operations in generation order
+     */
+    List<OperationReference> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return resource name to the operations bound to it, in generation order
+     */
+    Map<String, List<OperationReference>> getResources() {
+        return resources;
+    }
+
+    /**
+     * @return whether any operation streams its output, only then the streaming runtime and function URLs are generated
+     */
+    boolean hasStreamingOperations() {
+        return operations.stream().anyMatch(OperationReference::isStreaming);
+    }
+
+    Optional<OperationReference> getOperation(ShapeId shapeId) {
+        return Optional.ofNullable(byShapeId.get(shapeId));
+    }
+
+    /**
+     * @return TypeScript union of all operation names, e.g. {@code 'getUser' | 'listUsers'}
+     */
+    String getOperationUnion() {
+        return operationUnion;
+    }
+
+    /**
+     * Equivalent of {@code str.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase()} without the regex engine.
+     */
+    static String camelToKebabCase(String str) {
+        StringBuilder result = new StringBuilder(str.length() + 4);
+        char previous = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char current = str.charAt(i);
+            if (current >= 'A' && current <= 'Z' && ((previous >= 'a' && previous <= 'z') || (previous >= '0' && previous <= '9'))) {
+                result.append('-');
+            }
+            result.append(Character.toLowerCase(current));
+            previous = current;
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return the uri as API Gateway route path, greedy labels keep their {@code +} and an empty uri is {@code /}
+     */
+    static String getPath(List<SmithyPattern.Segment> segments) {
+        if (segments.isEmpty()) {
+            return "/";
+        }
+        StringBuilder path = new StringBuilder();
+        for (var segment : segments) {
+            path.append("/");
+            if (segment.isGreedyLabel()) {
+                path.append("{").append(segment.getContent()).append("+}");
+            } else if (segment.isLabel()) {
+                path.append("{").append(segment.getContent()).append("}");
+            } else {
+                path.append(segment.getContent());
+            }
+        }
+        return path.toString();
+    }
+}
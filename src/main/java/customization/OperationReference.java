@@ -0,0 +1,104 @@
+package customization;
+
+import java.util.Optional;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Immutable, precomputed view of a single HTTP bound operation as it is rendered into the generated
+ * routes, controller and handler files.
+ */
+final class OperationReference {
+    private final ShapeId shapeId;
+    private final String method;
+    private final String uri;
+    private final String handlerPath;
+    private final String functionId;
+    private final String operationName;
+    private final String operationNameFirstCharUppercase;
+    private final String parentResource;
+    private final String parentResourceFirstCharUppercase;
+    private final LambdaTuning tuning;
+    private final ApiCache cache;
+    private final boolean streaming;
+
+    OperationReference(ShapeId shapeId, String method, String uri, String handlerPath, String functionId, String operationName, String parentResource, LambdaTuning tuning, ApiCache cache, boolean streaming) {
+        this.shapeId = shapeId;
+        this.method = method;
+        this.uri = uri;
+        this.handlerPath = handlerPath;
+        this.functionId = functionId;
+        this.operationName = operationName;
+        this.operationNameFirstCharUppercase = Character.toUpperCase(operationName.charAt(0)) + operationName.substring(1);
+        this.parentResource = parentResource;
+        this.parentResourceFirstCharUppercase = Character.toUpperCase(parentResource.charAt(0)) + parentResource.substring(1);
+        this.tuning = tuning;
+        this.cache = cache;
+        this.streaming = streaming;
+    }
+
+    public ShapeId getShapeId() {
+        return shapeId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the route key used by SST, e.g. {@code GET /users/{id}}
+     */
+    public String getPath() {
+        return method + " " + uri;
+    }
+
+    public String getHandlerPath() {
+        return handlerPath;
+    }
+
+    public String getFunctionId() {
+        return functionId;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public String getOperationNameFirstCharUppercase() {
+        return operationNameFirstCharUppercase;
+    }
+
+    public String getParentResource() {
+        return parentResource;
+    }
+
+    public String getParentResourceFirstCharUppercase() {
+        return parentResourceFirstCharUppercase;
+    }
+
+    /**
+     * @return the Lambda settings inherited from the service and resources and set on the operation itself
+     */
+    public LambdaTuning getTuning() {
+        return tuning;
+    }
+
+    /**
+     * @return the response caching of a {@code @readonly} or GET operation
+     */
+    public Optional<ApiCache> getCache() {
+        return Optional.ofNullable(cache);
+    }
+
+    /**
+     * @return whether the output has a {@code @streaming} blob member and is streamed by a function URL instead of an API route,
+     * only if {@link RouteCustomizerSettings#isResponseStreaming()} is enabled
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+}
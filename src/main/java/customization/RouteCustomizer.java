@@ -1,401 +1,922 @@
 package customization;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import software.amazon.smithy.model.knowledge.TopDownIndex;
-import software.amazon.smithy.model.pattern.SmithyPattern;
-import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.build.FileManifest;
+import software.amazon.smithy.model.Model;
 import software.amazon.smithy.model.shapes.ShapeId;
-import software.amazon.smithy.model.traits.HttpTrait;
 import software.amazon.smithy.typescript.codegen.CodegenUtils;
 import software.amazon.smithy.typescript.codegen.TypeScriptCodegenContext;
-import software.amazon.smithy.typescript.codegen.TypeScriptSettings;
 import software.amazon.smithy.typescript.codegen.TypeScriptWriter;
 import software.amazon.smithy.typescript.codegen.integration.TypeScriptIntegration;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+import software.amazon.smithy.utils.SimpleCodeWriter;
 import software.amazon.smithy.utils.SmithyInternalApi;
 
-import java.io.*;
-import java.util.Map;
-import java.util.stream.Collectors;
-
 @SmithyInternalApi
 public final class RouteCustomizer implements TypeScriptIntegration {
 
-    private static class OperationReference {
-        String path;
-        String handlerPath;
-        String functionId;
-        String operationName;
-        String parentResource;
+    static final String CODEGEN_HEADER = "// smithy-typescript generated code";
 
-        OperationReference(String path, String handlerPath, String functionId, String operationName, String parentResource) {
+    /**
+     * Content of a single generated file, rendered into a private buffer so it can be produced off the writer thread
+     * and skipped if it did not change.
+     */
+    static final class GeneratedFile {
+        private final String path;
+        private final String content;
+
+        GeneratedFile(String path, String content) {
             this.path = path;
-            this.handlerPath = handlerPath;
-            this.functionId = functionId;
-            this.operationName = operationName;
-            this.parentResource = parentResource;
+            this.content = content;
         }
 
         public String getPath() {
             return path;
         }
 
-        public String getHandlerPath() {
-            return handlerPath;
+        public String getContent() {
+            return content;
         }
+    }
 
-        public String getFunctionId() {
-            return functionId;
+    static void writeOperation(OperationReference operation, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        writer.openBlock("$L: {", operation.getOperationName());
+        writer.write("path: '$L',", operation.getPath());
+        writer.write("handlerPath: $S,", operation.getHandlerPath());
+        writer.write("functionId: $S,", operation.getFunctionId());
+        writer.write("shapeId: $S,", operation.getShapeId().toString());
+        writer.write("operationName: $S,", operation.getOperationName());
+        if (!operation.getTuning().isEmpty()) {
+            writer.write("tuning: { $L },", operation.getTuning().toTypeScript());
         }
+        var cacheTtl = getCacheTtl(operation, settings);
+        if (cacheTtl > 0) {
+            var keyParameters = operation.getCache().get().getKeyParameters().stream().map(parameter -> "'" + parameter + "'").toList();
+            writer.write("cache: { ttl: $L, keyParameters: [$L] },", cacheTtl, String.join(", ", keyParameters));
+        }
+        settings.getNodejsProps().ifPresent(nodejs -> writer.write("nodejs: { $L },", nodejs));
+        if (operation.isStreaming()) {
+            writer.write("streaming: true,");
+        }
+        writer.closeBlock("},");
+    }
+
+    @Override
+    public void customize(TypeScriptCodegenContext codegenContext) {
+        var settings = RouteCustomizerSettings.from(codegenContext.settings().getPluginSettings());
+        var fileManifest = codegenContext.fileManifest();
+        var manifest = settings.isIncremental()
+                ? GenerationManifest.load(fileManifest.getBaseDir(), settings.getFingerprint(codegenContext.settings().getService()))
+                : GenerationManifest.disabled();
+
+        // The root index.ts is shared with the SSDK generator, so it is the only file written through the delegator
+        codegenContext.writerDelegator().useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "index.ts").toString(), mainIndexWriter -> {
+            mainIndexWriter.write("export * from $S;", "./handlers/index");
+            mainIndexWriter.write("export * from './server/controller';");
+        });
+
+        generate(codegenContext.model(), codegenContext.settings().getService(), settings, manifest, fileManifest);
+    }
+
+    /**
+     * Generates all routes, controller and handler files of the given service.
+     * Files which already exist with the same content are not written again.
+     */
+    void generate(Model model, ShapeId service, RouteCustomizerSettings settings, GenerationManifest manifest, FileManifest fileManifest) {
+        var report = settings.isReport() ? GenerationReport.start(service.toString()) : GenerationReport.disabled();
+        var additionalServices = settings.getAdditionalServices(model, service);
+        var catalogs = report.time("modelWalk", () -> OperationCatalog.of(model, Stream.concat(Stream.of(service), additionalServices.stream()).toList(), settings.isResponseStreaming()));
+        var catalog = catalogs.getFirst();
+        report.recordCatalogs(catalogs);
+        validateCaches(catalogs, settings);
+        var files = render(service.getName(), catalog, catalogs.subList(1, catalogs.size()), settings, manifest, report);
+        report.time("write", () -> {
+            for (var file : files) {
+                var written = manifest.needsWrite(file);
+                if (written) {
+                    fileManifest.writeFile(file.getPath(), file.getContent());
+                }
+                report.recordFile(file, written);
+            }
+            manifest.save();
+        });
+        report.save(fileManifest.getBaseDir());
+    }
 
-        public String getOperationName() {
-            return operationName;
+    /**
+     * Renders the routes file, the barrels and the files of every resource which is not up-to-date in the manifest.
+     * <p>
+     * Additional services only get their routes and service routers: controllers and handlers build on the operations
+     * the SSDK generates for {@code catalog}, operations shared with the additional services reuse them.
+     *
+     * @return the rendered files in a stable order
+     */
+    List<GeneratedFile> render(String serviceName, OperationCatalog catalog, List<OperationCatalog> additionalCatalogs, RouteCustomizerSettings settings,
+                               GenerationManifest manifest, GenerationReport report) {
+        List<GeneratedFile> files = new ArrayList<>();
+
+        // Do not reference "routes" package in root index.ts otherwise build of local handlers will fail
+        files.add(report.time("barrels", () -> renderFile(Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", "index.ts"), routesIndexTsWriter -> {
+            routesIndexTsWriter.write("export * from $S;", "./" + getRoutesFileName(serviceName));
+            // The routes of every service export the same type names, additional services get their own namespace
+            for (var additionalCatalog : additionalCatalogs) {
+                var additionalServiceName = additionalCatalog.getService().getName();
+                routesIndexTsWriter.write("export * as $L from $S;", getNamespace(additionalServiceName), "./" + getRoutesFileName(additionalServiceName));
+            }
+        })));
+        var routerGroups = RouterGenerator.getGroups(serviceName, catalog, settings.getDeployment());
+        files.addAll(renderRoutes(serviceName, catalog, routerGroups, settings, report));
+
+        List<RouterGenerator.RouterGroup> additionalServiceGroups = new ArrayList<>();
+        for (var additionalCatalog : additionalCatalogs) {
+            var additionalServiceName = additionalCatalog.getService().getName();
+            var additionalRouterGroups = RouterGenerator.getGroups(additionalServiceName, additionalCatalog, settings.getDeployment());
+            files.addAll(renderRoutes(additionalServiceName, additionalCatalog, additionalRouterGroups, settings, report));
+            if (settings.isResourceRoutes()) {
+                for (var operationsForResource : additionalCatalog.getResources().values()) {
+                    var routerName = RouterGenerator.getRouterName(additionalServiceName, operationsForResource, settings.getDeployment());
+                    files.add(report.time("routes", () -> renderFile(RouteModuleGenerator.getResourceModulePath(additionalServiceName, operationsForResource), routesWriter ->
+                            RouteModuleGenerator.writeResourceModule(additionalServiceName, operationsForResource, routerName, settings, routesWriter))));
+                }
+            }
+            if (settings.getDeployment() == RouteCustomizerSettings.Deployment.SERVICE) {
+                additionalServiceGroups.addAll(additionalRouterGroups);
+            }
         }
 
-        public String getOperationNameFirstCharUppercase() {
-            return Character.toUpperCase(operationName.charAt(0)) + operationName.substring(1);
+        var hasRouters = !routerGroups.isEmpty() || !additionalServiceGroups.isEmpty();
+        var handlerType = settings.getApiTarget().getHandlerType();
+        var streaming = catalog.hasStreamingOperations();
+        files.add(report.time("bases", () -> renderFile(Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "base.ts"), baseWriter -> {
+            baseWriter.write("import { $L, Context } from $L;", handlerType, "'aws-lambda'");
+            baseWriter.write("import { Operation, ServiceHandler } from $L;", "'@aws-smithy/server-common'");
+            if (streaming) {
+                baseWriter.write("import { StreamingHandler } from $L;", "'./streaming'");
+            }
+            baseWriter.openBlock("export interface ApiGatewayHandlerBase<T extends Context> {");
+            baseWriter.write("handle(service: ServiceHandler<T>): $L", handlerType);
+            if (streaming) {
+                writeDocs(baseWriter, "Handler of the operations with a streaming output, defaults to streamingHandler(service) with the Lambda context as context of the operation");
+                baseWriter.write("handleStream?(service: ServiceHandler<T>): StreamingHandler");
+            }
+            baseWriter.closeBlock("}");
+        })));
+
+        files.add(report.time("bases", () -> renderFile(Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", "base.ts"), controllerBaseWriter -> {
+            controllerBaseWriter.write("import { Context } from 'aws-lambda';");
+            controllerBaseWriter.write("import { Operation} from '@aws-smithy/server-common';");
+            controllerBaseWriter.write("import { ApiGatewayHandlerBase } from $L;", settings.isEntryModules() ? "'../../handlers/base'" : "'../../handlers/index'");
+            controllerBaseWriter.openBlock("export interface ControllerConfig<T extends Context> {");
+            controllerBaseWriter.write("gatewayHandler: ApiGatewayHandlerBase<T>;");
+            controllerBaseWriter.write("operationTransformation<I, O>(): (o: Operation<I, O, T>) => Operation<I, O, T>;");
+            controllerBaseWriter.closeBlock("}");
+        })));
+
+        // Barrels are merged in catalog order, independent of the order the resources finished rendering
+        files.add(report.time("barrels", () -> renderFile(Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", "index.ts"), controllerIndex -> {
+            controllerIndex.write("export { ControllerConfig } from $S;", "./base");
+            for (var operations : catalog.getResources().values()) {
+                var firstOperation = operations.getFirst();
+                controllerIndex.write("export { $LController } from $S;", firstOperation.getParentResourceFirstCharUppercase(), "./" + firstOperation.getParentResource() + "Controller");
+            }
+        })));
+
+        files.add(report.time("barrels", () -> renderFile(Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "index.ts"), handlerIndex -> {
+            handlerIndex.write("export * from $S;", "./base");
+            for (var operation : catalog.getOperations()) {
+                handlerIndex.write("export { $LHandlerBuilder } from $S;", operation.getOperationName(), "./" + operation.getOperationName() + "Handler");
+            }
+            if (hasRouters) {
+                handlerIndex.write("export * from $S;", "./router");
+            }
+            if (streaming) {
+                handlerIndex.write("export * from $S;", "./streaming");
+            }
+            for (var group : routerGroups) {
+                handlerIndex.write("export { create$LRouter, $LRouterHandlers } from $S;", group.getNameFirstCharUppercase(), group.getNameFirstCharUppercase(), "./" + group.getName() + "Router");
+            }
+            for (var group : additionalServiceGroups) {
+                handlerIndex.write("export { create$LRouter, $LRouterHandlers } from $S;", group.getNameFirstCharUppercase(), group.getNameFirstCharUppercase(), "./" + group.getName() + "Router");
+            }
+        })));
+
+        if (settings.isMetrics()) {
+            files.add(report.time("runtimes", () -> renderFile(MetricsGenerator.getRuntimePath(), metricsWriter -> MetricsGenerator.writeRuntime(settings.getMetricsNamespace(serviceName), metricsWriter))));
+        }
+        if (streaming) {
+            files.add(report.time("runtimes", () -> renderFile(StreamingGenerator.getRuntimePath(), StreamingGenerator::writeRuntime)));
+        }
+        if (settings.isBench()) {
+            files.add(report.time("runtimes", () -> renderFile(BenchGenerator.getHarnessPath(), benchWriter -> BenchGenerator.writeHarness(catalog, settings.getApiTarget(), benchWriter))));
+        }
+        if (hasRouters) {
+            files.add(report.time("runtimes", () -> renderFile(RouterGenerator.getRuntimePath(), runtimeWriter -> RouterGenerator.writeRuntime(settings.getApiTarget(), runtimeWriter))));
+        }
+        if (settings.getDeployment() == RouteCustomizerSettings.Deployment.SERVICE && !routerGroups.isEmpty()) {
+            var group = routerGroups.getFirst();
+            files.add(report.time("routers", () -> renderFile(RouterGenerator.getRouterPath(group), routerWriter -> RouterGenerator.writeRouter(group, settings.getApiTarget(), routerWriter))));
+        }
+        for (var group : additionalServiceGroups) {
+            files.add(report.time("routers", () -> renderFile(RouterGenerator.getRouterPath(group), routerWriter -> RouterGenerator.writeRouter(group, settings.getApiTarget(), routerWriter))));
         }
 
-        public String getParentResource() {
-            return parentResource;
+        // Controllers and handlers only depend on the operations of their own resource
+        List<List<OperationReference>> changedResources = new ArrayList<>();
+        report.time("manifest", () -> {
+            for (var entry : catalog.getResources().entrySet()) {
+                if (!manifest.isUpToDate(entry.getKey(), entry.getValue(), getResourceFilePaths(serviceName, entry.getValue(), settings))) {
+                    changedResources.add(entry.getValue());
+                }
+            }
+        });
+        report.setRenderedResources(changedResources.size());
+        for (var resourceFiles : renderResources(serviceName, changedResources, settings, report)) {
+            files.addAll(resourceFiles);
         }
+        return files;
+    }
 
-        public String getParentResourceFirstCharUppercase() {
-            return Character.toUpperCase(parentResource.charAt(0)) + parentResource.substring(1);
+    /**
+     * Renders the routes of a service, either one file or the common and service modules of the resource route modules.
+     */
+    private List<GeneratedFile> renderRoutes(String serviceName, OperationCatalog catalog, List<RouterGenerator.RouterGroup> routerGroups,
+                                             RouteCustomizerSettings settings, GenerationReport report) {
+        var routesFilePath = Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", getRoutesFileName(serviceName) + ".ts");
+        if (settings.isResourceRoutes()) {
+            return List.of(
+                    report.time("routes", () -> renderFile(RouteModuleGenerator.getCommonModulePath(serviceName), commonWriter ->
+                            RouteModuleGenerator.writeCommonModule(routerGroups, catalog.hasStreamingOperations(), settings, commonWriter))),
+                    report.time("routes", () -> renderFile(routesFilePath, routesServiceFileWriter ->
+                            RouteModuleGenerator.writeServiceModule(serviceName, catalog, settings, routesServiceFileWriter))));
         }
+        return List.of(report.time("routes", () -> renderFile(routesFilePath, routesServiceFileWriter ->
+                writeRoutes(serviceName, catalog, routerGroups, settings, routesServiceFileWriter))));
     }
 
-    String camelToKebabCase(String str) {
-        return str.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase();
+    private static String getRoutesFileName(String serviceName) {
+        return serviceName.toLowerCase() + "-routes";
     }
 
-    void writeOperation(String resourceName, OperationShape operation, List<OperationReference> operationUnion, TypeScriptWriter writer) {
-        var operationName = operation.toShapeId().getName();
-        var handlerPath = "services/functions/" + resourceName.toLowerCase() + "/application/handler/" + operationName.toLowerCase() + ".handler";
-        var functionId = camelToKebabCase(operationName);
+    private static String getNamespace(String serviceName) {
+        return Character.toLowerCase(serviceName.charAt(0)) + serviceName.substring(1);
+    }
 
-        var trait = operation.getTrait(HttpTrait.class);
+    void writeRoutes(String serviceName, OperationCatalog catalog, List<RouterGenerator.RouterGroup> routerGroups, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        var api = settings.getApiTarget().getConstruct();
+        var streaming = catalog.hasStreamingOperations();
+        writer.write("import { Function as _FUNC, FunctionProps, NodeJSProps, StackContext, $LRouteProps, $LFunctionRouteProps, $LAuthorizer } from $S;", api, api, api, "sst/constructs");
+        if (isCached(settings)) {
+            writer.write("import { Duration } from $S;", "aws-cdk-lib");
+            writer.write("import { MethodDeploymentOptions, RestApiProps } from $S;", "aws-cdk-lib/aws-apigateway");
+        }
+        writeLambdaImports(streaming, writer);
+        writeRouteTypes(routerGroups, streaming, settings, writer);
+
+        writer.openBlock("const operations: OperationReferences = {");
+        for (var entry : catalog.getResources().entrySet()) {
+            writer.openBlock("$L: {", entry.getKey());
+            for (var operation : entry.getValue()) {
+                writeOperation(operation, settings, writer);
+            }
+            writer.closeBlock("},");
+        }
+        writer.closeBlock("}");
 
-        if (trait.isPresent()) {
-            var segments = trait.get().getUri().getSegments();
-            String path = getPath(segments);
-            String lowerCasedName = Character.toLowerCase(operationName.charAt(0)) + operationName.substring(1);
-            OperationReference ref = new OperationReference(
-                    trait.get().getMethod() + " " + path,
-                    handlerPath,
-                    functionId,
-                    lowerCasedName,
-                    resourceName
-            );
+        for (var operations : catalog.getResources().values()) {
+            writeReferenceType(operations, writer);
+        }
 
-            operationUnion.add(ref);
+        writer.openBlock("export type OperationReferences = {");
+        for (var operations : catalog.getResources().values()) {
+            var firstOperation = operations.getFirst();
+            writer.write("$L: $LReference,", firstOperation.getParentResource(), firstOperation.getParentResourceFirstCharUppercase());
+        }
+        writer.closeBlock("}");
 
-            writer.openBlock("$L: {", lowerCasedName);
-            writer.write("path: '$L $L',", trait.get().getMethod(), path);
-            writer.write("handlerPath: $S,", handlerPath);
-            writer.write("functionId: $S,", functionId);
-            writer.write("operationName: $S,", lowerCasedName);
+        for (var operations : catalog.getResources().values()) {
+            writeResourceOperationHandlersType(operations, writer);
+        }
 
-            writer.closeBlock("},");
+        writer.openBlock("export type OperationHandlers<AuthorizerKeys> = {");
+
+        for (var operations : catalog.getResources().values()) {
+            var firstOperation = operations.getFirst();
+            writer.write("$L: $LResourceOperationHandlers<AuthorizerKeys>,", firstOperation.getParentResource(), firstOperation.getParentResourceFirstCharUppercase());
+        }
 
+        writer.closeBlock("}");
+
+        writer.write("export type ApiRoutes<AuthorizerKeys> = OperationHandlers<AuthorizerKeys>");
+        writer.write("export type BoundRoute<AuthorizerKeys> = Record<$L, () => HandlerProps<AuthorizerKeys>>;", catalog.getOperationUnion());
+
+        writer.openBlock("export class $LHandler<Authorizers extends Record<string, $LAuthorizer> = Record<string, never>, AuthorizerKeys = keyof Authorizers> {", serviceName, api);
+        writer.write("_routesHandler: ApiRoutes<AuthorizerKeys>;");
+        writeFactoryFields(writer);
+        writer.openBlock("constructor(context: StackContext, authorizers: Authorizers, isDeployedStageHandler: (stage: string | undefined) => boolean, routesHandler: ApiRoutes<AuthorizerKeys>) {");
+        writer.write("this.stackContext = context;");
+        writer.write("this.authorizers = authorizers;");
+        writer.write("this.isDeployedStage = isDeployedStageHandler;");
+        writer.write("this._routesHandler = routesHandler;");
+        writer.closeBlock("}");
+
+        writeFactoryMembers(!routerGroups.isEmpty(), streaming, settings, writer);
+
+        if (isCached(settings)) {
+            writer.openBlock("cacheMethodOptions(): Record<string, MethodDeploymentOptions> {");
+            writer.write("const cached = (ttl: number): MethodDeploymentOptions => ({ cachingEnabled: true, cacheTtl: Duration.seconds(ttl) });");
+            writer.openBlock("return {");
+            writeCacheMethodOptions(catalog.getOperations(), settings, writer);
+            writer.closeBlock("};");
+            writer.closeBlock("}");
+            writeRestApiProps(settings, writer);
         }
 
+        if (routerGroups.isEmpty()) {
+            writeOperationFunctions(catalog, api, writer);
+        } else {
+            writeSharedFunctions(routerGroups, api, isCached(settings), writer);
+        }
+        if (streaming) {
+            writeStreamingFunctions(catalog, writer);
+        }
+        writer.closeBlock("}");
     }
 
-    @Override
-    public void customize(TypeScriptCodegenContext codegenContext) {
-        var delegator = codegenContext.writerDelegator();
-        var service = codegenContext.settings().getService();
-        var serviceName = service.getName();
+    static void writeLambdaImports(boolean streaming, AbstractCodeWriter<?> writer) {
+        writer.write("import { Alias, IFunction$L } from $S;", streaming ? ", FunctionUrl, FunctionUrlAuthType, InvokeMode" : "", "aws-cdk-lib/aws-lambda");
+    }
 
-        delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "index.ts").toString(), mainIndexWriter -> {
-            mainIndexWriter.write("export * from $S;", "./handlers/index");
+    /**
+     * Writes the types shared by all routes and the definitions of the shared functions, the imports of
+     * {@code sst/constructs} and {@code aws-cdk-lib} must already be written.
+     */
+    static void writeRouteTypes(List<RouterGenerator.RouterGroup> routerGroups, boolean streaming, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        var api = settings.getApiTarget().getConstruct();
+        var cached = isCached(settings);
+        writer.write("export type HandlerFunctionPropsRequired = $S | $S | $S", "bind", "permissions", "environment");
+        writer.write("export type HandlerFunctionProps<AuthorizerKeys> = Required<Pick<FunctionProps, HandlerFunctionPropsRequired>> & Partial<Omit<FunctionProps, HandlerFunctionPropsRequired>> & Required<Pick<$LFunctionRouteProps<AuthorizerKeys>, $S>>", api, "authorizer");
+        writer.write("export type HandlerProps<AuthorizerKeys> = HandlerFunctionProps<AuthorizerKeys>");
+
+        writer.write("export type LambdaTuning = Pick<FunctionProps, 'memorySize' | 'architecture' | 'timeout'> & { provisionedConcurrency?: number, reservedConcurrency?: number }");
+
+        if (cached) {
+            writer.write("export type CacheDefinition = { ttl: number, keyParameters: string[] }");
+        }
 
+        writer.openBlock("export type OperationDefinition = {");
+        writer.write("path: string,");
+        writer.write("handlerPath: string,");
+        writer.write("functionId: string,");
+        writer.write("shapeId: string,");
+        writer.write("operationName: string,");
+        writer.write("tuning?: LambdaTuning,");
+        writer.write("nodejs?: NodeJSProps,");
+        if (cached) {
+            writer.write("cache?: CacheDefinition,");
+        }
+        if (streaming) {
+            writer.write("streaming?: boolean,");
+        }
+        writer.closeBlock("}");
+
+        writer.write("export type Operations = Record<string, OperationDefinition>;");
+
+        if (!routerGroups.isEmpty()) {
+            writer.openBlock("export type RouterDefinition = {");
+            writer.write("handlerPath: string,");
+            writer.write("functionId: string,");
+            writer.write("key: string,");
+            writer.write("tuning?: LambdaTuning,");
+            writer.write("nodejs?: NodeJSProps,");
+            writer.closeBlock("}");
+
+            writer.openBlock("export const routers: Record<string, RouterDefinition> = {");
+            for (var group : routerGroups) {
+                writer.openBlock("$L: {", group.getName());
+                writer.write("handlerPath: $S,", group.getHandlerPath());
+                writer.write("functionId: $S,", group.getFunctionId());
+                writer.write("key: $S,", group.getKey());
+                var tuning = group.getTuning();
+                if (!tuning.isEmpty()) {
+                    writer.write("tuning: { $L },", tuning.toTypeScript());
+                }
+                settings.getNodejsProps().ifPresent(nodejs -> writer.write("nodejs: { $L },", nodejs));
+                writer.closeBlock("},");
+            }
+            writer.closeBlock("}");
+        }
+    }
 
-            // Do not reference "routes" package in root index.ts otherwise build of local handlers will fail
-            delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", "index.ts").toString(), routesIndexTsWriter -> {
-
-                var operations = TopDownIndex.of(codegenContext.model()).getContainedOperations(service);
-                var serviceFileName = serviceName.toLowerCase() + "-routes";
-                delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", serviceFileName + ".ts").toString(), routesServiceFileWriter -> {
-
-                    routesIndexTsWriter.write("export * from $S;", "./" + serviceFileName);
-                    routesServiceFileWriter.write("import { Function as _FUNC, FunctionProps, StackContext, ApiGatewayV1ApiRouteProps, ApiGatewayV1ApiFunctionRouteProps, ApiGatewayV1ApiAuthorizer } from $S;", "sst/constructs");
-                    routesServiceFileWriter.write("export type HandlerFunctionPropsRequired = $S | $S | $S", "bind", "permissions", "environment");
-                    routesServiceFileWriter.write("export type HandlerFunctionProps<AuthorizerKeys> = Required<Pick<FunctionProps, HandlerFunctionPropsRequired>> & Partial<Omit<FunctionProps, HandlerFunctionPropsRequired>> & Required<Pick<ApiGatewayV1ApiFunctionRouteProps<AuthorizerKeys>, $S>>", "authorizer");
-                    routesServiceFileWriter.write("export type HandlerProps<AuthorizerKeys> = HandlerFunctionProps<AuthorizerKeys>");
-
-                    routesServiceFileWriter.openBlock("export type OperationDefinition = {");
-                    routesServiceFileWriter.write("path: string,");
-                    routesServiceFileWriter.write("handlerPath: string,");
-                    routesServiceFileWriter.write("functionId: string,");
-                    routesServiceFileWriter.write("operationName: string,");
-                    routesServiceFileWriter.closeBlock("}");
-
-                    routesServiceFileWriter.write("export type Operations = Record<string, OperationDefinition>;");
-
-                    List<OperationReference> operationList = new ArrayList<>();
-                    var resources = TopDownIndex.of(codegenContext.model()).getContainedResources(service);
-
-                    List<ShapeId> resourceOperationShapes = new java.util.ArrayList<>();
-
-                    routesServiceFileWriter.openBlock("const operations: OperationReferences = {");
-
-                    for (var resource : resources) {
-                        var resourceName = resource.getId().getName().toLowerCase();
-                        var resourceOperations = TopDownIndex.of(codegenContext.model()).getContainedOperations(resource.toShapeId());
-                        routesServiceFileWriter.openBlock("$L: {", resourceName);
-                        for (var operation : resourceOperations) {
-                            resourceOperationShapes.add(operation.toShapeId());
-
-                            writeOperation(resourceName, operation, operationList, routesServiceFileWriter);
-                        }
-                        routesServiceFileWriter.closeBlock("},");
-                    }
-                    // Only add "api" resource if there are "global" / api layer operations
-                    if (operationList.stream().anyMatch(c -> c.parentResource == "api")) {
-                        routesServiceFileWriter.openBlock("api: {");
-                        for (var operation : operations) {
-                            if (!resourceOperationShapes.contains(operation.toShapeId())) {
-                                writeOperation("api", operation, operationList, routesServiceFileWriter);
-                            }
-                        }
-                        routesServiceFileWriter.closeBlock("}");
-                    }
-
-                    routesServiceFileWriter.closeBlock("}");
-
-                    StringBuilder operationUnion = new StringBuilder();
-
-                    Map<String, List<OperationReference>> map = operationList.stream().collect(Collectors.groupingBy(OperationReference::getParentResourceFirstCharUppercase, HashMap::new, Collectors.toCollection(ArrayList::new)));
-
-                    for (Map.Entry<String, List<OperationReference>> entry : map.entrySet()) {
-                        String resourceName = entry.getKey();
-                        routesServiceFileWriter.openBlock("export type $LReference = {", resourceName);
-                        for (var operation : entry.getValue()) {
-                            routesServiceFileWriter.write("$L: OperationDefinition,", operation.getOperationName());
-                        }
-                        routesServiceFileWriter.closeBlock("}");
-                    }
-
-                    for (var operation : operationList) {
-                        if (!operationUnion.isEmpty()) {
-                            operationUnion.append(" | ");
-                        }
-                        operationUnion.append("'").append(operation.getOperationName()).append("'");
-                    }
-
-                    routesServiceFileWriter.openBlock("export type OperationReferences = {");
-
-                    for (Map.Entry<String, List<OperationReference>> entry : map.entrySet()) {
-                        String resourceName = entry.getKey();
-                        routesServiceFileWriter.write("$L: $LReference,", Character.toLowerCase(resourceName.charAt(0)) + resourceName.substring(1), resourceName);
-                    }
-
-                    routesServiceFileWriter.closeBlock("}");
-
-                    List<String> resourcesList = new java.util.ArrayList<>();
-
-                    for (var entry : map.entrySet()) {
-                        String resourceName = entry.getKey();
-                        resourcesList.add(resourceName);
-                        routesServiceFileWriter.openBlock("export type $LResourceOperationHandlers<AuthorizerKeys> = {", resourceName);
-                        for (var operation : entry.getValue()) {
-                            routesServiceFileWriter.write("$L: () => HandlerProps<AuthorizerKeys>,", operation.getOperationName());
-                        }
-                        routesServiceFileWriter.closeBlock("}");
-                    }
-
-                    for (var operation : operationList) {
-                        if (!operationUnion.isEmpty()) {
-                            operationUnion.append(" | ");
-                        }
-                        operationUnion.append("'").append(operation.getOperationName()).append("'");
-                    }
-
-                    routesServiceFileWriter.openBlock("export type OperationHandlers<AuthorizerKeys> = {");
-
-                    for (var resourceName : resourcesList) {
-                        routesServiceFileWriter.write("$L: $LResourceOperationHandlers<AuthorizerKeys>,", Character.toLowerCase(resourceName.charAt(0)) + resourceName.substring(1), resourceName);
-                    }
-
-                    routesServiceFileWriter.closeBlock("}");
-
-                    routesServiceFileWriter.write("export type ApiRoutes<AuthorizerKeys> = OperationHandlers<AuthorizerKeys>");
-                    routesServiceFileWriter.write("export type BoundRoute<AuthorizerKeys> = Record<$L, () => HandlerProps<AuthorizerKeys>>;", operationUnion.toString());
-
-                    routesServiceFileWriter.openBlock("export class $LHandler<Authorizers extends Record<string, ApiGatewayV1ApiAuthorizer> = Record<string, never>, AuthorizerKeys = keyof Authorizers> {", serviceName);
-                    routesServiceFileWriter.write("_routesHandler: ApiRoutes<AuthorizerKeys>;");
-                    routesServiceFileWriter.write("stackContext: StackContext;");
-                    routesServiceFileWriter.write("authorizers: Authorizers;");
-                    routesServiceFileWriter.write("isDeployedStage: (stage: string | undefined) => boolean;");
-                    routesServiceFileWriter.openBlock("constructor(context: StackContext, authorizers: Authorizers, isDeployedStageHandler: (stage: string | undefined) => boolean, routesHandler: ApiRoutes<AuthorizerKeys>) {");
-                    routesServiceFileWriter.write("this.stackContext = context;");
-                    routesServiceFileWriter.write("this.authorizers = authorizers;");
-                    routesServiceFileWriter.write("this.isDeployedStage = isDeployedStageHandler;");
-                    routesServiceFileWriter.write("this._routesHandler = routesHandler;");
-                    routesServiceFileWriter.closeBlock("}");
-
-                    routesServiceFileWriter.openBlock("apiFunctionName = (functionId: string) =>");
-                    routesServiceFileWriter.closeBlock("this.stackContext.stack.stage + '-' + this.stackContext.app.name + '-' + functionId;");
-
-
-                    routesServiceFileWriter.openBlock("apiFunctionDefaultProps(): FunctionProps {");
-                    routesServiceFileWriter.openBlock("return {");
-                    routesServiceFileWriter.write("timeout: '30 seconds',");
-                    routesServiceFileWriter.writeDocs("Make log retention dependent on if the stage is a deployed production/staging or dev stage");
-                    routesServiceFileWriter.write("logRetention: this.isDeployedStage(this.stackContext.stack.stage) ? undefined : 'two_weeks'");
-                    routesServiceFileWriter.closeBlock("};");
-                    routesServiceFileWriter.closeBlock("};");
-
-
-                    routesServiceFileWriter.openBlock(" createApiFunction(functionId: string, props: FunctionProps): _FUNC {");
-                    routesServiceFileWriter.openBlock(" return new _FUNC(this.stackContext.stack, functionId, {");
-                    routesServiceFileWriter.write("functionName: this.apiFunctionName(functionId),");
-                    routesServiceFileWriter.write("...this.apiFunctionDefaultProps(),");
-                    routesServiceFileWriter.write("...props,");
-                    routesServiceFileWriter.closeBlock("});");
-                    routesServiceFileWriter.closeBlock("};");
-
-                    routesServiceFileWriter.openBlock("createRecordForDefinition(ref: OperationDefinition, handlerProps: HandlerProps<AuthorizerKeys>) {");
-                    routesServiceFileWriter.openBlock("return {");
-                    routesServiceFileWriter.write("authorizer: handlerProps.authorizer,");
-                    routesServiceFileWriter.openBlock("function: this.createApiFunction(ref.functionId, {");
-                    routesServiceFileWriter.write("handler: ref.handlerPath,");
-                    routesServiceFileWriter.write("...handlerProps");
-                    routesServiceFileWriter.closeBlock("}),");
-                    routesServiceFileWriter.closeBlock("}");
-                    routesServiceFileWriter.closeBlock("}");
-
-                    routesServiceFileWriter.openBlock("handlers(): Record<string, ApiGatewayV1ApiRouteProps<AuthorizerKeys>> {");
-                    routesServiceFileWriter.openBlock("return {");
-                    for (var operation : operationList) {
-                        routesServiceFileWriter.write("'$L': this.createRecordForDefinition(operations.$L.$L, this._routesHandler.$L.$L()),", operation.getPath(), operation.getParentResource(), operation.getOperationName(), operation.getParentResource(), operation.getOperationName());
-                    }
-
-
-                    routesServiceFileWriter.closeBlock("}");
-                    routesServiceFileWriter.closeBlock("}");
-                    routesServiceFileWriter.closeBlock("}");
-
-                    delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "base.ts").toString(), baseWriter -> {
-                        baseWriter.write("import { APIGatewayProxyHandler, Context } from $L;", "'aws-lambda'");
-                        baseWriter.write("import { Operation, ServiceHandler } from $L;", "'@aws-smithy/server-common'");
-                        baseWriter.openBlock("export interface ApiGatewayHandlerBase<T extends Context> {");
-                        baseWriter.write("handle(service: ServiceHandler<T>): APIGatewayProxyHandler");
-                        baseWriter.closeBlock("}");
-                    });
-
-                    delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", "index.ts").toString(), controllerIndex -> {
-
-                        delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", "base.ts").toString(), controllerBaseWriter -> {
-                            controllerBaseWriter.write("import { Context } from 'aws-lambda';");
-                            controllerBaseWriter.write("import { Operation} from '@aws-smithy/server-common';");
-                            controllerBaseWriter.write("import { ApiGatewayHandlerBase } from $L;", "'../../handlers/index'");
-                            controllerBaseWriter.openBlock("export interface ControllerConfig<T extends Context> {");
-                            controllerBaseWriter.write("gatewayHandler: ApiGatewayHandlerBase<T>;");
-                            controllerBaseWriter.write("operationTransformation<I, O>(): (o: Operation<I, O, T>) => Operation<I, O, T>;");
-                            controllerBaseWriter.closeBlock("}");
-                        });
-
-                        controllerIndex.write("export { ControllerConfig } from $S;", "./base");
-                        mainIndexWriter.write("export * from './server/controller';");
-
-                        delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "index.ts").toString(), handlerIndex -> {
-                            handlerIndex.write("export * from $S;", "./base");
-
-                            for (var entry : map.entrySet()) {
-                                var operationsForResource = entry.getValue();
-
-                                if (!operationsForResource.isEmpty()) {
-                                    var firstOperation = operationsForResource.getFirst();
-                                    var resourceNameUppercase = firstOperation.getParentResourceFirstCharUppercase();
-                                    var resourceName = firstOperation.getParentResource();
-                                    var handlerImportUnion = operationsForResource
-                                            .stream()
-                                            .map(s -> s.getOperationName() + "HandlerBuilder")
-                                            .collect(Collectors.joining(", ", "", ", ApiGatewayHandlerBase"));
-
-                                    var operationServerImportUnion = operationsForResource
-                                            .stream()
-                                            .map(s -> s.getOperationNameFirstCharUppercase() + "ServerInput," + s.getOperationNameFirstCharUppercase() + "ServerOutput")
-                                            .collect(Collectors.joining(", ", "", ""));
-
-
-                                    delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", resourceName + "Controller.ts").toString(), controllerWriter -> {
-                                        controllerIndex.write("export { $LController } from $S;", resourceNameUppercase, "./" + resourceName + "Controller");
-                                        controllerWriter.write("import { Context, APIGatewayProxyHandler } from 'aws-lambda';");
-                                        controllerWriter.write("import { Operation} from '@aws-smithy/server-common';");
-                                        controllerWriter.write("import { ControllerConfig } from './base';");
-                                        controllerWriter.write("import { $L} from $L;", operationServerImportUnion, "'../operations/index'");
-                                        controllerWriter.write("import { $L} from $L;", handlerImportUnion, "'../../handlers/index'");
-                                        controllerWriter.openBlock("export abstract class $LController<T extends Context> {", resourceNameUppercase);
-                                        controllerWriter.write("abstract config: ControllerConfig<T>;");
-
-                                        for (var operation : operationsForResource) {
-                                            var uppercasedOperationName = operation.getOperationNameFirstCharUppercase();
-
-                                            handlerIndex.write("export { $LHandlerBuilder } from $S;", operation.getOperationName(), "./" + operation.getOperationName() + "Handler");
-
-
-                                            delegator.useFileWriter(Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", operation.getOperationName() + "Handler.ts").toString(), handlerWriter -> {
-
-                                                handlerWriter.write("import { ApiGatewayHandlerBase } from $L;", "'./base'");
-                                                handlerWriter.write("import { get$LHandler, $LServerInput, $LServerOutput } from $L;", uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, "'../index'");
-                                                handlerWriter.write("import { Context } from $L;", "'aws-lambda'");
-                                                handlerWriter.write("import { Operation } from $L;", "'@aws-smithy/server-common'");
-
-                                                handlerWriter.openBlock("export function $LHandlerBuilder<T extends Context>(" +
-                                                        "gatewayHandler: ApiGatewayHandlerBase<T>,\n" +
-                                                        "op: Operation<$LServerInput, $LServerOutput, T>,\n" +
-                                                        "operationTransformation?: (op: Operation<$LServerInput, $LServerOutput, T>) => Operation<$LServerInput, $LServerOutput, T>\n" +
-                                                        ") {", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName);
-                                                handlerWriter.write("var operation = operationTransformation ? operationTransformation(op) : op;");
-                                                handlerWriter.write("return gatewayHandler.handle(get$LHandler(operation));", uppercasedOperationName);
-                                                handlerWriter.closeBlock("}");
-                                            });
-
-                                            controllerWriter.write("protected abstract $LFunction<SC extends T>(): Operation<$LServerInput, $LServerOutput, SC>;", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName);
-                                            controllerWriter.openBlock("$LHandler(): APIGatewayProxyHandler {", operation.getOperationName());
-                                            controllerWriter.write("return this._$LHandler(this.config.gatewayHandler, this.config.operationTransformation());", operation.getOperationName());
-                                            controllerWriter.closeBlock("}");
-                                            controllerWriter.openBlock("protected _$LHandler(gatewayHandler: ApiGatewayHandlerBase<T>, operationTransformation?: (op: Operation<$LServerInput, $LServerOutput, T>) => Operation<$LServerInput, $LServerOutput, T>): APIGatewayProxyHandler {", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName);
-                                            controllerWriter.write("return $LHandlerBuilder(gatewayHandler, this.$LFunction(), operationTransformation);", operation.getOperationName(), operation.getOperationName());
-                                            controllerWriter.closeBlock("}");
-                                        }
-
-                                        controllerWriter.closeBlock("}");
-                                    });
-
-                                }
-
-
-                            }
-
-                        });
-                    });
-                });
-            });
-        });
+    static void writeReferenceType(List<OperationReference> operationsForResource, AbstractCodeWriter<?> writer) {
+        writer.openBlock("export type $LReference = {", operationsForResource.getFirst().getParentResourceFirstCharUppercase());
+        for (var operation : operationsForResource) {
+            writer.write("$L: OperationDefinition,", operation.getOperationName());
+        }
+        writer.closeBlock("}");
+    }
+
+    static void writeResourceOperationHandlersType(List<OperationReference> operationsForResource, AbstractCodeWriter<?> writer) {
+        writer.openBlock("export type $LResourceOperationHandlers<AuthorizerKeys> = {", operationsForResource.getFirst().getParentResourceFirstCharUppercase());
+        for (var operation : operationsForResource) {
+            writer.write("$L: () => HandlerProps<AuthorizerKeys>,", operation.getOperationName());
+        }
+        writer.closeBlock("}");
+    }
+
+    static void writeFactoryFields(AbstractCodeWriter<?> writer) {
+        writer.write("stackContext: StackContext;");
+        writer.write("authorizers: Authorizers;");
+        writer.write("isDeployedStage: (stage: string | undefined) => boolean;");
+    }
+
+    /**
+     * Writes the members which create the functions and route props of the operations, they only depend on the settings.
+     *
+     * @param sharedFunctions whether operations are served by the shared functions of {@code routers}
+     * @param streaming whether operations are served by function URLs with response streaming
+     */
+    static void writeFactoryMembers(boolean sharedFunctions, boolean streaming, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        writer.openBlock("apiFunctionName = (functionId: string) =>");
+        writer.closeBlock("this.stackContext.stack.stage + '-' + this.stackContext.app.name + '-' + functionId;");
+
+        writer.openBlock("apiFunctionDefaultProps(): FunctionProps {");
+        writer.openBlock("return {");
+        writer.write("timeout: '30 seconds',");
+        writeDocs(writer, "Make log retention dependent on if the stage is a deployed production/staging or dev stage");
+        writer.write("logRetention: this.isDeployedStage(this.stackContext.stack.stage) ? undefined : 'two_weeks'");
+        writer.closeBlock("};");
+        writer.closeBlock("};");
+
+        writeDocs(writer, "Bundling settings of the definition, nodejs props of the handler take precedence. The key (shape id of the operation or the operations of a router) is stored as metadata of the function, "
+                + "operations shared by several services of the stack reuse the function created first, another operation with the same function id is an error");
+        writer.openBlock("createApiFunction(functionId: string, key: string, props: FunctionProps, nodejs?: NodeJSProps): _FUNC {");
+        writer.write("const existing = this.stackContext.stack.node.tryFindChild(functionId);");
+        writer.openBlock("if (existing) {");
+        writer.openBlock("if (existing instanceof _FUNC && existing.node.metadata.some((entry) => entry.type === 'smithy4sst:key' && entry.data === key)) {");
+        writer.write("return existing;");
+        writer.closeBlock("}");
+        writer.write("throw new Error('Function id ' + functionId + ' of ' + key + ' is already used by another operation or construct');");
+        writer.closeBlock("}");
+        writer.openBlock("const fn = new _FUNC(this.stackContext.stack, functionId, {");
+        writer.write("functionName: this.apiFunctionName(functionId),");
+        writer.write("...this.apiFunctionDefaultProps(),");
+        writer.write("...props,");
+        writer.write("nodejs: { ...nodejs, ...props.nodejs },");
+        writer.closeBlock("});");
+        writer.write("fn.node.addMetadata('smithy4sst:key', key);");
+        writer.write("return fn;");
+        writer.closeBlock("};");
+
+        writeDocs(writer, "Lambda settings of the smithy4sst#lambdaTuning trait, explicit handler props take precedence");
+        writer.openBlock("tuningProps(tuning?: LambdaTuning): FunctionProps {");
+        writer.openBlock("if (!tuning) {");
+        writer.write("return {};");
+        writer.closeBlock("}");
+        writer.write("const { provisionedConcurrency, reservedConcurrency, ...props } = tuning;");
+        writer.write("return reservedConcurrency === undefined ? props : { ...props, reservedConcurrentExecutions: reservedConcurrency };");
+        writer.closeBlock("}");
+
+        writeDocs(writer, "Provisioned concurrency is configured on the 'live' alias of the function, which has to be invoked instead of $LATEST");
+        writer.openBlock("applyProvisionedConcurrency(fn: _FUNC, tuning?: LambdaTuning): IFunction {");
+        writer.openBlock("if (!tuning?.provisionedConcurrency) {");
+        writer.write("return fn;");
+        writer.closeBlock("}");
+        writer.write("const existing = fn.node.tryFindChild('Aliaslive');");
+        writer.write("return existing instanceof Alias ? existing : fn.addAlias('live', { provisionedConcurrentExecutions: tuning.provisionedConcurrency });");
+        writer.closeBlock("}");
+
+        var api = settings.getApiTarget().getConstruct();
+        writeDocs(writer, "SST only integrates an alias passed as cdk.function, functions are passed as function so SST can bind them");
+        writer.openBlock("functionRouteProps(fn: IFunction, cdk?: $LFunctionRouteProps<AuthorizerKeys>['cdk']): Pick<$LFunctionRouteProps<AuthorizerKeys>, 'function' | 'cdk'> {", api, api);
+        writer.write("return fn instanceof _FUNC ? { function: fn, cdk } : { cdk: { ...cdk, function: fn } };");
+        writer.closeBlock("}");
+
+        var cached = isCached(settings);
+        if (cached) {
+            writeDocs(writer, "Declares the cache key parameters of a cached operation on its method and integration. Routes behind an authorizer are keyed by the Authorization header as well, so a response is never served to another caller. "
+                    + "The Authorization header of IAM auth is a signature of the request, not the caller, so cached operations must not use the iam authorizer");
+            writer.openBlock("cacheRouteProps(ref: OperationDefinition, authorizer: HandlerProps<AuthorizerKeys>['authorizer']): $LFunctionRouteProps<AuthorizerKeys>['cdk'] {", api);
+            writer.write("const cache = ref.cache;");
+            writer.openBlock("if (!cache) {");
+            writer.write("return undefined;");
+            writer.closeBlock("}");
+            writer.openBlock("if (authorizer === 'iam') {");
+            writer.write("throw new Error('Operation ' + ref.shapeId + ' is cached and uses the iam authorizer, API Gateway can not key its cache by the IAM caller. Use another authorizer or disable its cache with @apiCache(ttl: 0)');");
+            writer.closeBlock("}");
+            writer.write("const keyParameters = authorizer === 'none' ? cache.keyParameters : [...cache.keyParameters, 'method.request.header.Authorization'];");
+            writer.openBlock("if (keyParameters.length === 0) {");
+            writer.write("return undefined;");
+            writer.closeBlock("}");
+            writer.openBlock("return {");
+            writer.write("method: { requestParameters: Object.fromEntries(keyParameters.map((p) => [p, p.startsWith('method.request.path.')])) },");
+            writer.write("integration: { cacheKeyParameters: keyParameters },");
+            writer.closeBlock("};");
+            writer.closeBlock("}");
+        }
+
+        writer.openBlock("createRecordForDefinition(ref: OperationDefinition, handlerProps: HandlerProps<AuthorizerKeys>): $LFunctionRouteProps<AuthorizerKeys> {", api);
+        writer.openBlock("const fn = this.applyProvisionedConcurrency(this.createApiFunction(ref.functionId, ref.shapeId, {");
+        writer.write("handler: ref.handlerPath,");
+        writer.write("...this.tuningProps(ref.tuning),");
+        writer.write("...handlerProps");
+        writer.closeBlock("}, ref.nodejs), ref.tuning);");
+        writer.openBlock("return {");
+        writer.write("authorizer: handlerProps.authorizer,");
+        writer.write("...this.functionRouteProps(fn$L),", cached ? ", this.cacheRouteProps(ref, handlerProps.authorizer)" : "");
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+
+        if (streaming) {
+            writeDocs(writer, "Creates the function of a streaming operation with a function URL, API routes would buffer the response. Function URLs only support IAM auth, any other authorizer fails the synth instead of publishing the operation");
+            writer.openBlock("createStreamingFunction(ref: OperationDefinition, handlerProps: HandlerProps<AuthorizerKeys>): FunctionUrl {");
+            writer.write("const { authorizer, ...functionProps } = handlerProps;");
+            writer.openBlock("if (authorizer !== 'iam' && authorizer !== 'none') {");
+            writer.write("throw new Error('Operation ' + ref.operationName + ' is streamed by a function URL, which only supports the \\'iam\\' or \\'none\\' authorizer');");
+            writer.closeBlock("}");
+            writer.openBlock("const fn = this.applyProvisionedConcurrency(this.createApiFunction(ref.functionId, ref.shapeId, {");
+            writer.write("handler: ref.handlerPath,");
+            writer.write("...this.tuningProps(ref.tuning),");
+            writer.write("...functionProps");
+            writer.closeBlock("}, ref.nodejs), ref.tuning);");
+            writer.write("const existing = fn.node.tryFindChild('FunctionUrl');");
+            writer.openBlock("if (existing instanceof FunctionUrl) {");
+            writer.write("return existing;");
+            writer.closeBlock("}");
+            writer.openBlock("return fn.addFunctionUrl({");
+            writer.write("authType: authorizer === 'iam' ? FunctionUrlAuthType.AWS_IAM : FunctionUrlAuthType.NONE,");
+            writer.write("invokeMode: InvokeMode.RESPONSE_STREAM,");
+            writer.closeBlock("});");
+            writer.closeBlock("}");
+        }
 
+        if (sharedFunctions) {
+            writer.write("_sharedFunctions: Record<string, _FUNC> = {};");
+
+            writeDocs(writer, "Creates the function of a router on the first call, later calls add the bindings, permissions and environment of their handler props");
+            writer.openBlock("createSharedFunction(router: RouterDefinition, handlerProps: HandlerProps<AuthorizerKeys>[]): IFunction {");
+            writer.write("const props = handlerProps.map(({ authorizer, ...functionProps }) => functionProps);");
+            writer.write("const existing = this._sharedFunctions[router.functionId];");
+            writer.openBlock("if (existing) {");
+            writer.write("existing.bind(props.flatMap((p) => p.bind));");
+            writer.write("props.forEach((p) => existing.attachPermissions(p.permissions));");
+            writer.write("props.forEach((p) => Object.entries(p.environment).forEach(([key, value]) => existing.addEnvironment(key, value)));");
+            writer.write("return this.applyProvisionedConcurrency(existing, router.tuning);");
+            writer.closeBlock("}");
+            writer.openBlock("this._sharedFunctions[router.functionId] = this.createApiFunction(router.functionId, router.key, {");
+            writer.write("...this.tuningProps(router.tuning),");
+            writer.write("...Object.assign({}, ...props),");
+            writer.write("handler: router.handlerPath,");
+            writer.write("bind: props.flatMap((p) => p.bind),");
+            writer.write("permissions: props.some((p) => p.permissions === '*') ? '*' : props.flatMap((p) => p.permissions === '*' ? [] : p.permissions),");
+            writer.write("environment: Object.assign({}, ...props.map((p) => p.environment)),");
+            writer.closeBlock("}, router.nodejs);");
+            writer.write("return this.applyProvisionedConcurrency(this._sharedFunctions[router.functionId], router.tuning);");
+            writer.closeBlock("}");
+        }
+    }
+
+    /**
+     * Writes the entries of the stage {@code methodOptions} of the cached operations, a {@code cached(ttl)} function
+     * returning the options of one method must be in scope.
+     */
+    static void writeCacheMethodOptions(List<OperationReference> operations, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        for (var operation : operations) {
+            var cacheTtl = getCacheTtl(operation, settings);
+            if (cacheTtl > 0) {
+                writer.write("'$L/$L': cached($L),", operation.getUri(), operation.getMethod(), cacheTtl);
+            }
+        }
+    }
+
+    static void writeRestApiProps(RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        writeDocs(writer, "Use as cdk.restApi props of the ApiGatewayV1Api to enable the stage cache for @readonly and GET operations");
+        writer.openBlock("restApiProps(cacheClusterSize: string = $S): RestApiProps {", settings.getCacheClusterSize());
+        writer.openBlock("return {");
+        writer.openBlock("deployOptions: {");
+        writer.write("cacheClusterEnabled: true,");
+        writer.write("cacheClusterSize,");
+        writer.write("methodOptions: this.cacheMethodOptions(),");
+        writer.closeBlock("},");
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Fails the generation if API Gateway can not key the cache of a cached operation by all of its inputs.
+     */
+    static void validateCaches(List<OperationCatalog> catalogs, RouteCustomizerSettings settings) {
+        for (var catalog : catalogs) {
+            for (var operation : catalog.getOperations()) {
+                if (getCacheTtl(operation, settings) > 0) {
+                    operation.getCache().get().validate(operation);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the api has a response cache, HTTP apis have none
+     */
+    static boolean isCached(RouteCustomizerSettings settings) {
+        return settings.getApiTarget() == RouteCustomizerSettings.ApiTarget.REST;
+    }
+
+    /**
+     * @return seconds API Gateway caches the responses of the operation, 0 if it is not cached, the api has no cache (HTTP api)
+     * or the operation is streamed by a function URL
+     */
+    static int getCacheTtl(OperationReference operation, RouteCustomizerSettings settings) {
+        if (!isCached(settings) || operation.isStreaming()) {
+            return 0;
+        }
+        return operation.getCache().map(cache -> cache.getTtl(settings.getCacheTtl())).orElse(0);
+    }
+
+    /**
+     * Writes the {@code handlers()} with one function per operation.
+     */
+    private void writeOperationFunctions(OperationCatalog catalog, String api, AbstractCodeWriter<?> writer) {
+        writer.openBlock("handlers(): Record<string, $LRouteProps<AuthorizerKeys>> {", api);
+        writer.openBlock("return {");
+        for (var operation : RouterGenerator.getRoutedOperations(catalog.getOperations())) {
+            writer.write("'$L': this.createRecordForDefinition(operations.$L.$L, this._routesHandler.$L.$L()),", operation.getPath(), operation.getParentResource(), operation.getOperationName(), operation.getParentResource(), operation.getOperationName());
+        }
+
+        writer.closeBlock("}");
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Writes the {@code streamingUrls()} with the function URL of every streaming operation, by operation name.
+     */
+    private void writeStreamingFunctions(OperationCatalog catalog, AbstractCodeWriter<?> writer) {
+        writeDocs(writer, "Function URLs of the operations with a streaming output, they are not part of handlers()");
+        writer.openBlock("streamingUrls(): Record<string, FunctionUrl> {");
+        writer.openBlock("return {");
+        for (var operation : catalog.getOperations()) {
+            if (operation.isStreaming()) {
+                writer.write("$L: this.createStreamingFunction(operations.$L.$L, this._routesHandler.$L.$L()),", operation.getOperationName(), operation.getParentResource(), operation.getOperationName(), operation.getParentResource(), operation.getOperationName());
+            }
+        }
+        writer.closeBlock("}");
+        writer.closeBlock("}");
     }
 
-    private static String getPath(List<SmithyPattern.Segment> segments) {
-        StringBuilder path = new StringBuilder();
-        for (var segment : segments) {
-            path.append("/");
-            if (segment.isLabel() || segment.isGreedyLabel() || segment.isNonGreedyLabel()) {
-                path.append("{").append(segment.getContent()).append("}");
-            } else if (segment.isLiteral()) {
-                path.append(segment.getContent());
-            } else {
-                path.append(segment.getContent());
+    /**
+     * Writes the {@code handlers()} of a deployment with shared functions: the handler props of all operations of a group
+     * are merged into one function and every route of the group points to it.
+     */
+    private void writeSharedFunctions(List<RouterGenerator.RouterGroup> routerGroups, String api, boolean cached, AbstractCodeWriter<?> writer) {
+        writer.openBlock("handlers(): Record<string, $LRouteProps<AuthorizerKeys>> {", api);
+        for (var group : routerGroups) {
+            writer.openBlock("const $LProps = {", group.getName());
+            for (var operation : group.getOperations()) {
+                writer.write("$L: this._routesHandler.$L.$L(),", operation.getOperationName(), operation.getParentResource(), operation.getOperationName());
             }
+            writer.closeBlock("};");
+            writer.write("const $LFunction = this.createSharedFunction(routers.$L, Object.values($LProps));", group.getName(), group.getName(), group.getName());
+        }
+        writer.openBlock("return {");
+        for (var group : routerGroups) {
+            for (var operation : group.getOperations()) {
+                if (cached) {
+                    writer.write("'$L': { authorizer: $LProps.$L.authorizer, ...this.functionRouteProps($LFunction, this.cacheRouteProps(operations.$L.$L, $LProps.$L.authorizer)) },",
+                            operation.getPath(), group.getName(), operation.getOperationName(), group.getName(), operation.getParentResource(), operation.getOperationName(),
+                            group.getName(), operation.getOperationName());
+                } else {
+                    writer.write("'$L': { authorizer: $LProps.$L.authorizer, ...this.functionRouteProps($LFunction) },", operation.getPath(), group.getName(), operation.getOperationName(), group.getName());
+                }
+            }
+        }
+        writer.closeBlock("}");
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Renders the controller and handler files of the given resources, on the common fork-join pool if parallel rendering is enabled.
+     *
+     * @return the files of each resource, in the order of {@code resources}
+     */
+    List<List<GeneratedFile>> renderResources(String serviceName, List<List<OperationReference>> resources, RouteCustomizerSettings settings, GenerationReport report) {
+        var stream = resources.stream();
+        if (settings.isParallel()) {
+            stream = stream.parallel();
         }
-        return path.toString();
+        return stream.map(operationsForResource -> renderResource(serviceName, operationsForResource, settings, report)).toList();
+    }
+
+    List<GeneratedFile> renderResource(String serviceName, List<OperationReference> operationsForResource, RouteCustomizerSettings settings, GenerationReport report) {
+        List<GeneratedFile> files = new ArrayList<>(operationsForResource.size() + 3);
+        var resourceRouter = RouterGenerator.hasResourceRouter(operationsForResource, settings.getDeployment());
+        files.add(report.time("controllers", () -> renderFile(getControllerPath(operationsForResource.getFirst()), controllerWriter -> writeController(operationsForResource, settings, controllerWriter))));
+        for (var operation : operationsForResource) {
+            files.add(report.time("handlers", () -> renderFile(getHandlerPath(operation), handlerWriter -> writeHandler(serviceName, operation, settings, handlerWriter))));
+        }
+        if (resourceRouter) {
+            var group = RouterGenerator.createResourceGroup(operationsForResource);
+            files.add(report.time("routers", () -> renderFile(RouterGenerator.getRouterPath(group), routerWriter -> RouterGenerator.writeRouter(group, settings.getApiTarget(), routerWriter))));
+        }
+        if (settings.isResourceRoutes()) {
+            var routerName = RouterGenerator.getRouterName(serviceName, operationsForResource, settings.getDeployment());
+            files.add(report.time("routes", () -> renderFile(RouteModuleGenerator.getResourceModulePath(serviceName, operationsForResource), routesWriter ->
+                    RouteModuleGenerator.writeResourceModule(serviceName, operationsForResource, routerName, settings, routesWriter))));
+        }
+        report.recordResource(operationsForResource.getFirst().getParentResource(), files);
+        return files;
+    }
+
+    private static Path getControllerPath(OperationReference operation) {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "server", "controller", operation.getParentResource() + "Controller.ts");
+    }
+
+    private static Path getHandlerPath(OperationReference operation) {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", operation.getOperationName() + "Handler.ts");
+    }
+
+    private static List<String> getResourceFilePaths(String serviceName, List<OperationReference> operationsForResource, RouteCustomizerSettings settings) {
+        List<String> paths = new ArrayList<>(operationsForResource.size() + 3);
+        paths.add(getControllerPath(operationsForResource.getFirst()).toString());
+        for (var operation : operationsForResource) {
+            paths.add(getHandlerPath(operation).toString());
+        }
+        if (RouterGenerator.hasResourceRouter(operationsForResource, settings.getDeployment())) {
+            paths.add(RouterGenerator.getRouterPath(RouterGenerator.createResourceGroup(operationsForResource)).toString());
+        }
+        if (settings.isResourceRoutes()) {
+            paths.add(RouteModuleGenerator.getResourceModulePath(serviceName, operationsForResource).toString());
+        }
+        return paths;
+    }
+
+    void writeController(List<OperationReference> operationsForResource, RouteCustomizerSettings settings, AbstractCodeWriter<?> controllerWriter) {
+        var resourceRouter = RouterGenerator.hasResourceRouter(operationsForResource, settings.getDeployment());
+        var streaming = operationsForResource.stream().anyMatch(OperationReference::isStreaming);
+        var handlerType = settings.getApiTarget().getHandlerType();
+        var resourceNameUppercase = operationsForResource.getFirst().getParentResourceFirstCharUppercase();
+        var handlerImportUnion = operationsForResource
+                .stream()
+                .map(s -> s.getOperationName() + "HandlerBuilder")
+                .collect(Collectors.joining(", ", "", ", ApiGatewayHandlerBase"));
+
+        if (resourceRouter) {
+            handlerImportUnion += ", create" + resourceNameUppercase + "Router";
+        }
+        if (streaming) {
+            handlerImportUnion += ", StreamingHandler";
+        }
+
+        var operationServerImportUnion = operationsForResource
+                .stream()
+                .map(s -> s.getOperationNameFirstCharUppercase() + "ServerInput," + s.getOperationNameFirstCharUppercase() + "ServerOutput")
+                .collect(Collectors.joining(", ", "", ""));
+
+        controllerWriter.write("import { Context, $L } from 'aws-lambda';", handlerType);
+        controllerWriter.write("import { Operation} from '@aws-smithy/server-common';");
+        controllerWriter.write("import { ControllerConfig } from './base';");
+        if (settings.isEntryModules()) {
+            writeEntryModuleImports(operationsForResource, resourceRouter, streaming, controllerWriter);
+        } else {
+            controllerWriter.write("import { $L} from $L;", operationServerImportUnion, "'../operations/index'");
+            controllerWriter.write("import { $L} from $L;", handlerImportUnion, "'../../handlers/index'");
+        }
+        controllerWriter.openBlock("export abstract class $LController<T extends Context> {", resourceNameUppercase);
+        controllerWriter.write("abstract config: ControllerConfig<T>;");
+        writeDocs(controllerWriter, "Handlers built once per controller and execution environment");
+        controllerWriter.write("private readonly _handlers: Record<string, $L> = {};", handlerType);
+        if (streaming) {
+            controllerWriter.write("private readonly _streamingHandlers: Record<string, StreamingHandler> = {};");
+        }
+        if (resourceRouter) {
+            controllerWriter.write("private _routerHandler?: $L;", handlerType);
+        }
+
+        writeDocs(controllerWriter, "Builds the handlers of all operations, call it where the controller is created at module scope to run the initialization in the Lambda init phase");
+        controllerWriter.openBlock("warmUp(): this {");
+        if (resourceRouter) {
+            controllerWriter.write("this.routerHandler();");
+        }
+        for (var operation : operationsForResource) {
+            if (!resourceRouter || operation.isStreaming()) {
+                controllerWriter.write("this.$LHandler();", operation.getOperationName());
+            }
+        }
+        controllerWriter.write("return this;");
+        controllerWriter.closeBlock("}");
+
+        for (var operation : operationsForResource) {
+            var uppercasedOperationName = operation.getOperationNameFirstCharUppercase();
+            var operationHandlerType = operation.isStreaming() ? "StreamingHandler" : handlerType;
+            controllerWriter.write("protected abstract $LFunction<SC extends T>(): Operation<$LServerInput, $LServerOutput, SC>;", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName);
+            controllerWriter.openBlock("$LHandler(): $L {", operation.getOperationName(), operationHandlerType);
+            controllerWriter.write("return this.$L.$L ??= this._$LHandler(this.config.gatewayHandler, this.config.operationTransformation());",
+                    operation.isStreaming() ? "_streamingHandlers" : "_handlers", operation.getOperationName(), operation.getOperationName());
+            controllerWriter.closeBlock("}");
+            controllerWriter.openBlock("protected _$LHandler(gatewayHandler: ApiGatewayHandlerBase<T>, operationTransformation?: (op: Operation<$LServerInput, $LServerOutput, T>) => Operation<$LServerInput, $LServerOutput, T>): $L {", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, operationHandlerType);
+            controllerWriter.write("return $LHandlerBuilder(gatewayHandler, this.$LFunction(), operationTransformation);", operation.getOperationName(), operation.getOperationName());
+            controllerWriter.closeBlock("}");
+        }
+
+        if (resourceRouter) {
+            controllerWriter.openBlock("routerHandler(): $L {", handlerType);
+            controllerWriter.openBlock("return this._routerHandler ??= create$LRouter({", resourceNameUppercase);
+            for (var operation : RouterGenerator.getRoutedOperations(operationsForResource)) {
+                controllerWriter.write("$L: this.$LHandler(),", operation.getOperationName(), operation.getOperationName());
+            }
+            controllerWriter.closeBlock("});");
+            controllerWriter.closeBlock("}");
+        }
+
+        controllerWriter.closeBlock("}");
+    }
+
+    /**
+     * Imports every handler builder and operation of a controller from its own module, the barrels re-export all
+     * operations of the SSDK and would pull their serializers into every bundle. A controller still imports all
+     * operations of its resource, a function of a single operation only bundles that operation if it imports the
+     * {@code <op>HandlerBuilder} instead of the controller.
+     */
+    private static void writeEntryModuleImports(List<OperationReference> operationsForResource, boolean resourceRouter, boolean streaming, AbstractCodeWriter<?> controllerWriter) {
+        controllerWriter.write("import { ApiGatewayHandlerBase } from $L;", "'../../handlers/base'");
+        if (streaming) {
+            controllerWriter.write("import { StreamingHandler } from $L;", "'../../handlers/streaming'");
+        }
+        for (var operation : operationsForResource) {
+            var uppercasedOperationName = operation.getOperationNameFirstCharUppercase();
+            controllerWriter.write("import { $LServerInput, $LServerOutput } from $L;", uppercasedOperationName, uppercasedOperationName, "'../operations/" + uppercasedOperationName + "'");
+            controllerWriter.write("import { $LHandlerBuilder } from $L;", operation.getOperationName(), "'../../handlers/" + operation.getOperationName() + "Handler'");
+        }
+        if (resourceRouter) {
+            var group = RouterGenerator.createResourceGroup(operationsForResource);
+            controllerWriter.write("import { create$LRouter } from $L;", group.getNameFirstCharUppercase(), "'../../handlers/" + group.getName() + "Router'");
+        }
+    }
+
+    /**
+     * Writes the handler builder of an operation. As entry module it only imports the SSDK module of its own operation,
+     * so it can be imported directly by the function of the operation.
+     * <p>
+     * The handler of a streaming operation pipes the response into the response stream of a function URL, it is not
+     * instrumented with metrics as its response is still being sent when the handler returns.
+     */
+    void writeHandler(String serviceName, OperationReference operation, RouteCustomizerSettings settings, AbstractCodeWriter<?> handlerWriter) {
+        var uppercasedOperationName = operation.getOperationNameFirstCharUppercase();
+        var entryModule = settings.isEntryModules();
+        var metrics = settings.isMetrics() && !operation.isStreaming();
+        handlerWriter.write("import { ApiGatewayHandlerBase } from $L;", "'./base'");
+        if (operation.isStreaming()) {
+            handlerWriter.write("import { streamingHandler, StreamingHandler } from $L;", "'./streaming'");
+        }
+        handlerWriter.write("import { get$LHandler, $LServerInput, $LServerOutput } from $L;", uppercasedOperationName, uppercasedOperationName, uppercasedOperationName,
+                entryModule ? "'../server/operations/" + uppercasedOperationName + "'" : "'../index'");
+        handlerWriter.write("import { Context } from $L;", "'aws-lambda'");
+        handlerWriter.write("import { Operation } from $L;", "'@aws-smithy/server-common'");
+        if (metrics) {
+            handlerWriter.write("import { createOperationMetrics } from $L;", "'./metrics'");
+            handlerWriter.write("const metrics = createOperationMetrics($S, $S);",
+                    RouterGenerator.getServingFunctionId(serviceName, operation, settings.getDeployment()), operation.getOperationName());
+        }
+
+        handlerWriter.openBlock("export function $LHandlerBuilder<T extends Context>(" +
+                "gatewayHandler: ApiGatewayHandlerBase<T>,\n" +
+                "op: Operation<$LServerInput, $LServerOutput, T>,\n" +
+                "operationTransformation?: (op: Operation<$LServerInput, $LServerOutput, T>) => Operation<$LServerInput, $LServerOutput, T>\n" +
+                ")$L {", operation.getOperationName(), uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName, uppercasedOperationName,
+                operation.isStreaming() ? ": StreamingHandler" : "");
+        handlerWriter.write("var operation = operationTransformation ? operationTransformation(op) : op;");
+        if (operation.isStreaming()) {
+            handlerWriter.write("const service = get$LHandler(operation);", uppercasedOperationName);
+            handlerWriter.write("return gatewayHandler.handleStream ? gatewayHandler.handleStream(service) : streamingHandler(service);");
+        } else if (metrics) {
+            handlerWriter.write("return metrics.instrument(gatewayHandler.handle(get$LHandler(metrics.timeOperation(operation))));", uppercasedOperationName);
+        } else {
+            handlerWriter.write("return gatewayHandler.handle(get$LHandler(operation));", uppercasedOperationName);
+        }
+        handlerWriter.closeBlock("}");
+    }
+
+    /**
+     * Renders a file into a thread confined writer with the same header and indentation as the {@link TypeScriptWriter}.
+     */
+    static GeneratedFile renderFile(Path path, Consumer<SimpleCodeWriter> body) {
+        var writer = new SimpleCodeWriter();
+        writer.setIndentText("  ");
+        writer.trimTrailingSpaces(true);
+        writer.writeWithNoFormatting(CODEGEN_HEADER);
+        body.accept(writer);
+        return new GeneratedFile(path.toString(), writer.toString());
+    }
+
+    static void writeDocs(AbstractCodeWriter<?> writer, String docs) {
+        writer.write("/**");
+        writer.write(" * $L", docs);
+        writer.write(" */");
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,317 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Options of the {@link RouteCustomizer}, read from the {@code routeCustomizer} member of the typescript
+ * codegen plugin settings in {@code smithy-build.json}:
+ *
+ * <pre>{@code
+ * "typescript-ssdk-codegen": {
+ *     "service": "com.example#Example",
+ *     "routeCustomizer": {
+ *         "parallel": true,
+ *         "incremental": true,
+ *         "deployment": "resource",
+ *         "apiTarget": "http",
+ *         "entryModules": true,
+ *         "bundling": { "minify": true, "sourcemap": false, "format": "esm", "external": ["@aws-sdk/*"] },
+ *         "metrics": true,
+ *         "metricsNamespace": "Example",
+ *         "report": true,
+ *         "resourceRoutes": true,
+ *         "services": ["com.example#Admin"],
+ *         "responseStreaming": true,
+ *         "bench": true
+ *     }
+ * }
+ * }</pre>
+ */
+final class RouteCustomizerSettings {
+
+    static final String SETTINGS_KEY = "routeCustomizer";
+
+    /**
+     * How operations are mapped onto Lambda functions.
+     */
+    enum Deployment {
+        /**
+         * One function per operation.
+         */
+        OPERATION,
+        /**
+         * One function per resource, dispatching to the operations with a generated router.
+         */
+        RESOURCE,
+        /**
+         * One function for the whole service, dispatching to the operations with a generated router.
+         */
+        SERVICE
+    }
+
+    /**
+     * API Gateway flavour the routes, gateway handler bases and routers are generated for.
+     */
+    enum ApiTarget {
+        /**
+         * REST api ({@code ApiGatewayV1Api}, payload format 1.0).
+         */
+        REST("ApiGatewayV1Api", "APIGatewayProxyHandler", "APIGatewayProxyEvent"),
+        /**
+         * HTTP api ({@code Api}, payload format 2.0).
+         */
+        HTTP("Api", "APIGatewayProxyHandlerV2", "APIGatewayProxyEventV2");
+
+        private final String construct;
+        private final String handlerType;
+        private final String eventType;
+
+        ApiTarget(String construct, String handlerType, String eventType) {
+            this.construct = construct;
+            this.handlerType = handlerType;
+            this.eventType = eventType;
+        }
+
+        /**
+         * @return the {@code sst/constructs} api construct, also the prefix of its route props and authorizer types
+         */
+        String getConstruct() {
+            return construct;
+        }
+
+        /**
+         * @return the {@code aws-lambda} handler type of the payload format
+         */
+        String getHandlerType() {
+            return handlerType;
+        }
+
+        /**
+         * @return the {@code aws-lambda} event type of the payload format
+         */
+        String getEventType() {
+            return eventType;
+        }
+    }
+
+    private final ObjectNode node;
+    private final boolean parallel;
+    private final boolean incremental;
+    private final Deployment deployment;
+    private final ApiTarget apiTarget;
+    private final int cacheTtl;
+    private final String cacheClusterSize;
+    private final boolean entryModules;
+    private final String nodejsProps;
+    private final boolean metrics;
+    private final String metricsNamespace;
+    private final boolean report;
+    private final boolean resourceRoutes;
+    private final List<String> services;
+    private final boolean responseStreaming;
+    private final boolean bench;
+
+    private RouteCustomizerSettings(ObjectNode node) {
+        this.node = node;
+        this.parallel = node.getBooleanMemberOrDefault("parallel", false);
+        this.incremental = node.getBooleanMemberOrDefault("incremental", false);
+        this.deployment = getEnumMember(node, "deployment", Deployment.OPERATION);
+        this.apiTarget = getEnumMember(node, "apiTarget", ApiTarget.REST);
+        this.cacheTtl = node.getNumberMemberOrDefault("cacheTtl", 0).intValue();
+        this.cacheClusterSize = node.getStringMemberOrDefault("cacheClusterSize", "0.5");
+        this.entryModules = node.getBooleanMemberOrDefault("entryModules", false);
+        this.nodejsProps = node.getObjectMember("bundling").map(RouteCustomizerSettings::toNodejsProps).orElse(null);
+        this.metrics = node.getBooleanMemberOrDefault("metrics", false);
+        this.metricsNamespace = node.getStringMemberOrDefault("metricsNamespace", null);
+        this.report = node.getBooleanMemberOrDefault("report", false);
+        this.resourceRoutes = node.getBooleanMemberOrDefault("resourceRoutes", false);
+        this.services = node.getMember("services")
+                .map(services -> services.isStringNode()
+                        ? List.of(services.expectStringNode().getValue())
+                        : services.expectArrayNode().getElements().stream().map(service -> service.expectStringNode().getValue()).toList())
+                .orElse(List.of());
+        // Resource routers of different services would share router file names, handler paths and function ids
+        if (!services.isEmpty() && deployment == Deployment.RESOURCE) {
+            throw new CodegenException(SETTINGS_KEY + ".services is not supported with the resource deployment, use operation or service");
+        }
+        this.responseStreaming = node.getBooleanMemberOrDefault("responseStreaming", false);
+        this.bench = node.getBooleanMemberOrDefault("bench", false);
+    }
+
+    /**
+     * @return the members of the sst {@code NodeJSProps}, e.g. {@code minify: true, format: "esm"}, strings are
+     * written as JSON string literals, which are valid TypeScript string literals
+     */
+    private static String toNodejsProps(ObjectNode bundling) {
+        List<String> members = new ArrayList<>(4);
+        bundling.getBooleanMember("minify").ifPresent(minify -> members.add("minify: " + minify.getValue()));
+        bundling.getBooleanMember("sourcemap").ifPresent(sourcemap -> members.add("sourcemap: " + sourcemap.getValue()));
+        bundling.getStringMember("format").ifPresent(format -> {
+            if (!format.getValue().equals("esm") && !format.getValue().equals("cjs")) {
+                throw new CodegenException("Unsupported " + SETTINGS_KEY + ".bundling.format: " + format.getValue());
+            }
+            members.add("format: " + Node.printJson(format));
+        });
+        bundling.getArrayMember("external").ifPresent(external -> {
+            var modules = external.getElements().stream().map(module -> Node.printJson(module.expectStringNode())).toList();
+            members.add("esbuild: { external: [" + String.join(", ", modules) + "] }");
+        });
+        return String.join(", ", members);
+    }
+
+    private static <E extends Enum<E>> E getEnumMember(ObjectNode node, String member, E defaultValue) {
+        var value = node.getStringMemberOrDefault(member, defaultValue.name());
+        try {
+            return Enum.valueOf(defaultValue.getDeclaringClass(), value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new CodegenException("Unsupported " + SETTINGS_KEY + "." + member + ": " + value);
+        }
+    }
+
+    static RouteCustomizerSettings from(ObjectNode pluginSettings) {
+        return new RouteCustomizerSettings(pluginSettings.getObjectMember(SETTINGS_KEY).orElse(Node.objectNode()));
+    }
+
+    static RouteCustomizerSettings defaults() {
+        return new RouteCustomizerSettings(Node.objectNode());
+    }
+
+    /**
+     * @return whether controllers and handlers of different resources are rendered concurrently
+     */
+    boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * @return whether unchanged resources and files are skipped based on the {@link GenerationManifest} of the previous run
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    Deployment getDeployment() {
+        return deployment;
+    }
+
+    ApiTarget getApiTarget() {
+        return apiTarget;
+    }
+
+    /**
+     * @return seconds {@code @readonly} and GET operations are cached by API Gateway unless overridden by {@code @apiCache},
+     * 0 (the default) only caches operations with {@code @apiCache}
+     */
+    int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * @return default API Gateway cache cluster size in GB of the generated rest api props
+     */
+    String getCacheClusterSize() {
+        return cacheClusterSize;
+    }
+
+    /**
+     * @return whether handlers and controllers import the SSDK operation modules directly instead of the barrels, so a
+     * function bundle only contains the serializers of its own operations
+     */
+    boolean isEntryModules() {
+        return entryModules;
+    }
+
+    /**
+     * @return the esbuild settings passed as {@code nodejs} props to every generated function
+     */
+    Optional<String> getNodejsProps() {
+        return Optional.ofNullable(nodejsProps);
+    }
+
+    /**
+     * @return whether the handler builders emit latency, cold start and payload size metrics in the CloudWatch embedded metric format
+     */
+    boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return CloudWatch namespace of the metrics, defaults to the name of the service
+     */
+    String getMetricsNamespace(String serviceName) {
+        return metricsNamespace != null ? metricsNamespace : serviceName;
+    }
+
+    /**
+     * @return whether phase timings, counts and file sizes are written to the {@link GenerationReport}
+     */
+    boolean isReport() {
+        return report;
+    }
+
+    /**
+     * @return whether the routes are split into one module per resource, see {@link RouteModuleGenerator}
+     */
+    boolean isResourceRoutes() {
+        return resourceRoutes;
+    }
+
+    /**
+     * Resolves the {@code services} setting, either a list of service shape ids or {@code "*"} for all services of the model.
+     *
+     * @return the services whose routes are generated besides the service of the SSDK, sorted by shape id
+     */
+    List<ShapeId> getAdditionalServices(Model model, ShapeId service) {
+        var ids = services.contains("*")
+                ? model.getServiceShapes().stream().map(Shape::getId)
+                : services.stream().map(ShapeId::from);
+        var additionalServices = ids.filter(id -> !id.equals(service)).distinct().sorted().toList();
+        for (var id : additionalServices) {
+            if (model.getShape(id).flatMap(Shape::asServiceShape).isEmpty()) {
+                throw new CodegenException("Unknown service in " + SETTINGS_KEY + ".services: " + id);
+            }
+        }
+        return additionalServices;
+    }
+
+    /**
+     * @return whether operations with a {@code @streaming} blob output are served by a function URL with response streaming
+     * instead of a buffered API route
+     */
+    boolean isResponseStreaming() {
+        return responseStreaming;
+    }
+
+    /**
+     * @return whether the local load-test harness of the {@link BenchGenerator} is generated
+     */
+    boolean isBench() {
+        return bench;
+    }
+
+    /**
+     * @param service the service of the SSDK, its name is part of the router function ids
+     * @return identifies the generator build and every option which influences the generated content
+     */
+    String getFingerprint(ShapeId service) {
+        var version = RouteCustomizerSettings.class.getPackage().getImplementationVersion();
+        return GenerationManifest.hash((version == null ? "dev" : version) + "\n" + GeneratorHash.VALUE + "\n" + service + "\n" + Node.printJson(node));
+    }
+
+    /**
+     * Hashes the generator classes once per class loader, not on every run.
+     */
+    private static final class GeneratorHash {
+        static final String VALUE = GenerationManifest.hashGenerator();
+    }
+}
@@ -0,0 +1,196 @@
+package customization;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import software.amazon.smithy.typescript.codegen.CodegenUtils;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Generates the routes split into one module per resource if {@link RouteCustomizerSettings#isResourceRoutes()} is enabled:
+ * <ul>
+ *     <li>{@code routes/<service>-common.ts} with the shared types and the {@code RouteFactory}</li>
+ *     <li>{@code routes/<service>/<resource>.ts} with the definitions, types and route props of one resource</li>
+ *     <li>{@code routes/<service>-routes.ts} with the {@code <Service>Handler} composing the resource routes it is given</li>
+ * </ul>
+ * The service module does not import the resource modules, a stack only loads, type-checks and synthesizes the
+ * resources it passes to the {@code <Service>Handler}.
+ */
+final class RouteModuleGenerator {
+
+    private RouteModuleGenerator() {
+    }
+
+    static Path getCommonModulePath(String serviceName) {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", serviceName.toLowerCase() + "-common.ts");
+    }
+
+    static Path getResourceModulePath(String serviceName, List<OperationReference> operationsForResource) {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "routes", serviceName.toLowerCase(), operationsForResource.getFirst().getParentResource() + ".ts");
+    }
+
+    /**
+     * @param streaming whether the service has streaming operations, which are served by function URLs
+     */
+    static void writeCommonModule(List<RouterGenerator.RouterGroup> routerGroups, boolean streaming, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        var api = settings.getApiTarget().getConstruct();
+        var cached = RouteCustomizer.isCached(settings);
+        writer.write("import { Function as _FUNC, FunctionProps, NodeJSProps, StackContext, $LRouteProps, $LFunctionRouteProps, $LAuthorizer } from $S;", api, api, api, "sst/constructs");
+        if (cached) {
+            writer.write("import { MethodDeploymentOptions } from $S;", "aws-cdk-lib/aws-apigateway");
+        }
+        RouteCustomizer.writeLambdaImports(streaming, writer);
+        RouteCustomizer.writeRouteTypes(routerGroups, streaming, settings, writer);
+
+        writer.openBlock("export type ResourceRoutes<AuthorizerKeys> = {");
+        if (cached) {
+            writer.write("methodOptions?: Record<string, MethodDeploymentOptions>,");
+        }
+        writer.write("handlers: (factory: RouteFactory<any, AuthorizerKeys>) => Record<string, $LRouteProps<AuthorizerKeys>>,", api);
+        if (streaming) {
+            writer.write("streamingUrls?: (factory: RouteFactory<any, AuthorizerKeys>) => Record<string, FunctionUrl>,");
+        }
+        writer.closeBlock("}");
+
+        writer.openBlock("export class RouteFactory<Authorizers extends Record<string, $LAuthorizer> = Record<string, never>, AuthorizerKeys = keyof Authorizers> {", api);
+        RouteCustomizer.writeFactoryFields(writer);
+        writer.openBlock("constructor(context: StackContext, authorizers: Authorizers, isDeployedStageHandler: (stage: string | undefined) => boolean) {");
+        writer.write("this.stackContext = context;");
+        writer.write("this.authorizers = authorizers;");
+        writer.write("this.isDeployedStage = isDeployedStageHandler;");
+        writer.closeBlock("}");
+        RouteCustomizer.writeFactoryMembers(!routerGroups.isEmpty(), streaming, settings, writer);
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Writes the {@code <Service>Handler}, which only creates the functions of the resources passed to its constructor
+     * once {@code handlers()} is called.
+     */
+    static void writeServiceModule(String serviceName, OperationCatalog catalog, RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        var api = settings.getApiTarget().getConstruct();
+        var cached = RouteCustomizer.isCached(settings);
+        var streaming = catalog.hasStreamingOperations();
+        var commonModule = "./" + serviceName.toLowerCase() + "-common";
+        writer.write("import { StackContext, $LRouteProps, $LAuthorizer } from $S;", api, api, "sst/constructs");
+        if (cached) {
+            writer.write("import { MethodDeploymentOptions, RestApiProps } from $S;", "aws-cdk-lib/aws-apigateway");
+        }
+        if (streaming) {
+            writer.write("import { FunctionUrl } from $S;", "aws-cdk-lib/aws-lambda");
+        }
+        writer.write("import { ResourceRoutes, RouteFactory } from $S;", commonModule);
+        writer.write("export * from $S;", commonModule);
+
+        writer.openBlock("export type $LResourceRoutes<AuthorizerKeys> = {", serviceName);
+        for (var resourceName : catalog.getResources().keySet()) {
+            writer.write("$L?: ResourceRoutes<AuthorizerKeys>,", resourceName);
+        }
+        writer.closeBlock("}");
+
+        writer.openBlock("export class $LHandler<Authorizers extends Record<string, $LAuthorizer> = Record<string, never>, AuthorizerKeys = keyof Authorizers> extends RouteFactory<Authorizers, AuthorizerKeys> {", serviceName, api);
+        writer.write("_resourceRoutes: $LResourceRoutes<AuthorizerKeys>;", serviceName);
+        writer.openBlock("constructor(context: StackContext, authorizers: Authorizers, isDeployedStageHandler: (stage: string | undefined) => boolean, resourceRoutes: $LResourceRoutes<AuthorizerKeys>) {", serviceName);
+        writer.write("super(context, authorizers, isDeployedStageHandler);");
+        writer.write("this._resourceRoutes = resourceRoutes;");
+        writer.closeBlock("}");
+
+        if (cached) {
+            writer.openBlock("cacheMethodOptions(): Record<string, MethodDeploymentOptions> {");
+            writer.write("return Object.assign({}, ...Object.values(this._resourceRoutes).map((routes) => routes?.methodOptions));");
+            writer.closeBlock("}");
+            RouteCustomizer.writeRestApiProps(settings, writer);
+        }
+
+        writer.openBlock("handlers(): Record<string, $LRouteProps<AuthorizerKeys>> {", api);
+        writer.write("return Object.assign({}, ...Object.values(this._resourceRoutes).map((routes) => routes?.handlers(this)));");
+        writer.closeBlock("}");
+
+        if (streaming) {
+            RouteCustomizer.writeDocs(writer, "Function URLs of the operations with a streaming output, they are not part of handlers()");
+            writer.openBlock("streamingUrls(): Record<string, FunctionUrl> {");
+            writer.write("return Object.assign({}, ...Object.values(this._resourceRoutes).map((routes) => routes?.streamingUrls?.(this)));");
+            writer.closeBlock("}");
+        }
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Writes the definitions, types and the {@code <resource>Routes} function of one resource.
+     *
+     * @param routerName the name of the shared function serving the operations of the resource, {@code null} for one function per operation
+     */
+    static void writeResourceModule(String serviceName, List<OperationReference> operationsForResource, String routerName,
+                                    RouteCustomizerSettings settings, AbstractCodeWriter<?> writer) {
+        var firstOperation = operationsForResource.getFirst();
+        var resourceName = firstOperation.getParentResource();
+        var cached = RouteCustomizer.isCached(settings);
+        var hasCachedOperations = operationsForResource.stream().anyMatch(operation -> RouteCustomizer.getCacheTtl(operation, settings) > 0);
+        var routedOperations = RouterGenerator.getRoutedOperations(operationsForResource);
+        var streamingOperations = operationsForResource.stream().filter(OperationReference::isStreaming).toList();
+
+        if (hasCachedOperations) {
+            writer.write("import { Duration } from $S;", "aws-cdk-lib");
+            writer.write("import { MethodDeploymentOptions } from $S;", "aws-cdk-lib/aws-apigateway");
+        }
+        writer.write("import { OperationDefinition, HandlerProps, ResourceRoutes$L } from $S;", routerName != null ? ", routers" : "", "../" + serviceName.toLowerCase() + "-common");
+
+        RouteCustomizer.writeReferenceType(operationsForResource, writer);
+        writer.openBlock("export const $LOperations: $LReference = {", resourceName, firstOperation.getParentResourceFirstCharUppercase());
+        for (var operation : operationsForResource) {
+            RouteCustomizer.writeOperation(operation, settings, writer);
+        }
+        writer.closeBlock("}");
+        RouteCustomizer.writeResourceOperationHandlersType(operationsForResource, writer);
+
+        writer.openBlock("export function $LRoutes<AuthorizerKeys>(handlers: $LResourceOperationHandlers<AuthorizerKeys>): ResourceRoutes<AuthorizerKeys> {",
+                resourceName, firstOperation.getParentResourceFirstCharUppercase());
+        writer.openBlock("return {");
+        if (hasCachedOperations) {
+            writer.write("methodOptions: (() => {");
+            writer.indent();
+            writer.write("const cached = (ttl: number): MethodDeploymentOptions => ({ cachingEnabled: true, cacheTtl: Duration.seconds(ttl) });");
+            writer.openBlock("return {");
+            RouteCustomizer.writeCacheMethodOptions(operationsForResource, settings, writer);
+            writer.closeBlock("};");
+            writer.dedent();
+            writer.write("})(),");
+        }
+        if (routerName == null) {
+            writer.openBlock("handlers: (factory) => ({");
+            for (var operation : routedOperations) {
+                writer.write("'$L': factory.createRecordForDefinition($LOperations.$L, handlers.$L()),", operation.getPath(), resourceName, operation.getOperationName(), operation.getOperationName());
+            }
+            writer.closeBlock("}),");
+        } else {
+            writer.openBlock("handlers: (factory) => {");
+            writer.openBlock("const props = {");
+            for (var operation : routedOperations) {
+                writer.write("$L: handlers.$L(),", operation.getOperationName(), operation.getOperationName());
+            }
+            writer.closeBlock("};");
+            writer.write("const fn = factory.createSharedFunction(routers.$L, Object.values(props));", routerName);
+            writer.openBlock("return {");
+            for (var operation : routedOperations) {
+                if (cached) {
+                    writer.write("'$L': { authorizer: props.$L.authorizer, ...factory.functionRouteProps(fn, factory.cacheRouteProps($LOperations.$L, props.$L.authorizer)) },",
+                            operation.getPath(), operation.getOperationName(), resourceName, operation.getOperationName(), operation.getOperationName());
+                } else {
+                    writer.write("'$L': { authorizer: props.$L.authorizer, ...factory.functionRouteProps(fn) },", operation.getPath(), operation.getOperationName());
+                }
+            }
+            writer.closeBlock("};");
+            writer.closeBlock("},");
+        }
+        if (!streamingOperations.isEmpty()) {
+            writer.openBlock("streamingUrls: (factory) => ({");
+            for (var operation : streamingOperations) {
+                writer.write("$L: factory.createStreamingFunction($LOperations.$L, handlers.$L()),", operation.getOperationName(), resourceName, operation.getOperationName(), operation.getOperationName());
+            }
+            writer.closeBlock("}),");
+        }
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+    }
+}
@@ -0,0 +1,104 @@
+package customization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Route trie built at codegen time from the uris of the catalog, rendered as a TypeScript object literal
+ * which the generated router walks segment by segment without any regex matching.
+ * <p>
+ * Every node has literal children ({@code s}), at most one label child ({@code l}), greedy label targets
+ * ({@code g}) and the targets of routes ending in this node ({@code m}). A target maps the http method to
+ * the operation name and the names of the labels in the order they were matched.
+ */
+final class RouteTrie {
+
+    private static final class Node {
+        final Map<String, Node> literals = new TreeMap<>();
+        Node label;
+        final Map<String, Target> greedy = new TreeMap<>();
+        final Map<String, Target> methods = new TreeMap<>();
+    }
+
+    private static final class Target {
+        final String operationName;
+        final List<String> labels;
+
+        Target(String operationName, List<String> labels) {
+            this.operationName = operationName;
+            this.labels = labels;
+        }
+    }
+
+    private final Node root = new Node();
+
+    static RouteTrie of(List<OperationReference> operations) {
+        var trie = new RouteTrie();
+        operations.forEach(trie::add);
+        return trie;
+    }
+
+    private void add(OperationReference operation) {
+        var node = root;
+        List<String> labels = new ArrayList<>();
+        for (var segment : operation.getUri().split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("+}")) {
+                labels.add(segment.substring(1, segment.length() - 2));
+                node.greedy.put(operation.getMethod(), new Target(operation.getOperationName(), labels));
+                return;
+            } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                labels.add(segment.substring(1, segment.length() - 1));
+                if (node.label == null) {
+                    node.label = new Node();
+                }
+                node = node.label;
+            } else {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.methods.put(operation.getMethod(), new Target(operation.getOperationName(), labels));
+    }
+
+    void write(AbstractCodeWriter<?> writer) {
+        writeNode(writer, root, ";");
+    }
+
+    private static void writeNode(AbstractCodeWriter<?> writer, Node node, String terminator) {
+        writer.openBlock("{");
+        if (!node.literals.isEmpty()) {
+            writer.openBlock("s: {");
+            for (var entry : node.literals.entrySet()) {
+                writer.writeInline("$S: ", entry.getKey());
+                writeNode(writer, entry.getValue(), ",");
+            }
+            writer.closeBlock("},");
+        }
+        if (node.label != null) {
+            writer.writeInline("l: ");
+            writeNode(writer, node.label, ",");
+        }
+        writeTargets(writer, "g", node.greedy);
+        writeTargets(writer, "m", node.methods);
+        writer.closeBlock("}$L", terminator);
+    }
+
+    private static void writeTargets(AbstractCodeWriter<?> writer, String key, Map<String, Target> targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        writer.openBlock("$L: {", key);
+        for (var entry : targets.entrySet()) {
+            var target = entry.getValue();
+            var labels = target.labels.stream().map(label -> "'" + label + "'").toList();
+            writer.write("$L: ['$L', [$L]],", entry.getKey(), target.operationName, String.join(", ", labels));
+        }
+        writer.closeBlock("},");
+    }
+}
@@ -0,0 +1,272 @@
+package customization;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import software.amazon.smithy.typescript.codegen.CodegenUtils;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Generates the routers of the {@link RouteCustomizerSettings.Deployment#RESOURCE} and
+ * {@link RouteCustomizerSettings.Deployment#SERVICE} deployments, which serve several operations from one Lambda function.
+ * Streaming operations are never routed, they always get a function of their own.
+ */
+final class RouterGenerator {
+
+    /**
+     * Operations served by one shared Lambda function.
+     */
+    static final class RouterGroup {
+        private final String name;
+        private final String nameFirstCharUppercase;
+        private final String handlerPath;
+        private final String functionId;
+        private final List<OperationReference> operations;
+
+        RouterGroup(String name, String handlerPath, List<OperationReference> operations) {
+            this.name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            this.nameFirstCharUppercase = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            this.handlerPath = handlerPath;
+            this.functionId = getRouterFunctionId(name);
+            this.operations = operations;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getNameFirstCharUppercase() {
+            return nameFirstCharUppercase;
+        }
+
+        public String getHandlerPath() {
+            return handlerPath;
+        }
+
+        public String getFunctionId() {
+            return functionId;
+        }
+
+        public List<OperationReference> getOperations() {
+            return operations;
+        }
+
+        /**
+         * @return identifies the operations of the router, a function id shared by routers of different operations is an error
+         */
+        public String getKey() {
+            return "router:" + GenerationManifest.hash(operations.stream()
+                    .map(operation -> operation.getShapeId().toString())
+                    .sorted()
+                    .collect(Collectors.joining("\n"))).substring(0, 16);
+        }
+
+        public LambdaTuning getTuning() {
+            return LambdaTuning.combine(functionId, operations);
+        }
+    }
+
+    private RouterGenerator() {
+    }
+
+    /**
+     * @return the shared functions of the deployment, empty for one function per operation
+     */
+    static List<RouterGroup> getGroups(String serviceName, OperationCatalog catalog, RouteCustomizerSettings.Deployment deployment) {
+        return switch (deployment) {
+            case OPERATION -> List.of();
+            case RESOURCE -> catalog.getResources().values().stream()
+                    .filter(RouterGenerator::hasRoutedOperations)
+                    .map(RouterGenerator::createResourceGroup)
+                    .toList();
+            case SERVICE -> hasRoutedOperations(catalog.getOperations())
+                    ? List.of(new RouterGroup(
+                            serviceName,
+                            "services/functions/" + serviceName.toLowerCase() + "/application/handler/router.handler",
+                            getRoutedOperations(catalog.getOperations())))
+                    : List.of();
+        };
+    }
+
+    /**
+     * @return the operations served by a router, all but the streaming ones
+     */
+    static List<OperationReference> getRoutedOperations(List<OperationReference> operations) {
+        return operations.stream().filter(operation -> !operation.isStreaming()).toList();
+    }
+
+    static boolean hasRoutedOperations(List<OperationReference> operations) {
+        return operations.stream().anyMatch(operation -> !operation.isStreaming());
+    }
+
+    static String getRouterFunctionId(String name) {
+        return OperationCatalog.camelToKebabCase(Character.toUpperCase(name.charAt(0)) + name.substring(1)) + "-router";
+    }
+
+    /**
+     * @return the function id of the function serving an operation, the id of its router function in router deployments
+     */
+    static String getServingFunctionId(String serviceName, OperationReference operation, RouteCustomizerSettings.Deployment deployment) {
+        if (operation.isStreaming()) {
+            return operation.getFunctionId();
+        }
+        return switch (deployment) {
+            case OPERATION -> operation.getFunctionId();
+            case RESOURCE -> getRouterFunctionId(operation.getParentResource());
+            case SERVICE -> getRouterFunctionId(serviceName);
+        };
+    }
+
+    /**
+     * @return whether the operations of a resource are served by a resource router
+     */
+    static boolean hasResourceRouter(List<OperationReference> operationsForResource, RouteCustomizerSettings.Deployment deployment) {
+        return deployment == RouteCustomizerSettings.Deployment.RESOURCE && hasRoutedOperations(operationsForResource);
+    }
+
+    /**
+     * @return the name of the shared function serving the operations of a resource, {@code null} for one function per operation
+     * or if the resource only has streaming operations
+     */
+    static String getRouterName(String serviceName, List<OperationReference> operationsForResource, RouteCustomizerSettings.Deployment deployment) {
+        if (!hasRoutedOperations(operationsForResource)) {
+            return null;
+        }
+        var name = switch (deployment) {
+            case OPERATION -> null;
+            case RESOURCE -> operationsForResource.getFirst().getParentResource();
+            case SERVICE -> serviceName;
+        };
+        return name == null ? null : Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static RouterGroup createResourceGroup(List<OperationReference> operationsForResource) {
+        var resourceName = operationsForResource.getFirst().getParentResource();
+        return new RouterGroup(resourceName, "services/functions/" + resourceName + "/application/handler/router.handler", getRoutedOperations(operationsForResource));
+    }
+
+    static Path getRuntimePath() {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "router.ts");
+    }
+
+    static Path getRouterPath(RouterGroup group) {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", group.getName() + "Router.ts");
+    }
+
+    /**
+     * Writes the trie walker shared by all routers. API Gateway already resolved the route if {@code event.resource}
+     * (REST) or {@code event.routeKey} (HTTP) is one of the known route templates, only other invocations
+     * (e.g. catch-all proxy routes) walk the trie.
+     */
+    static void writeRuntime(RouteCustomizerSettings.ApiTarget apiTarget, AbstractCodeWriter<?> writer) {
+        var handlerType = apiTarget.getHandlerType();
+        var eventType = apiTarget.getEventType();
+        var routeKey = switch (apiTarget) {
+            case REST -> "event.httpMethod + ' ' + event.resource";
+            case HTTP -> "event.routeKey";
+        };
+        var method = switch (apiTarget) {
+            case REST -> "event.httpMethod";
+            case HTTP -> "event.requestContext.http.method";
+        };
+        var path = switch (apiTarget) {
+            case REST -> "event.path";
+            case HTTP -> "event.rawPath";
+        };
+        writer.write("import { $L, $L } from 'aws-lambda';", eventType, handlerType);
+        writer.write("export type RouteTarget = [operation: string, labels: string[]];");
+        writer.write("export type RouteNode = { s?: Record<string, RouteNode>, l?: RouteNode, g?: Record<string, RouteTarget>, m?: Record<string, RouteTarget> };");
+        writer.write("export type RouteMatch = { operation: string, pathParameters: Record<string, string> };");
+
+        writer.openBlock("function toMatch(target: RouteTarget, values: string[]): RouteMatch {");
+        writer.write("const pathParameters: Record<string, string> = {};");
+        writer.openBlock("for (let i = 0; i < values.length; i++) {");
+        writer.write("pathParameters[target[1][i]] = values[i];");
+        writer.closeBlock("}");
+        writer.write("return { operation: target[0], pathParameters };");
+        writer.closeBlock("}");
+
+        writer.openBlock("function walk(node: RouteNode, segments: string[], index: number, method: string, values: string[]): RouteMatch | undefined {");
+        writer.openBlock("if (index === segments.length) {");
+        writer.write("const target = node.m?.[method];");
+        writer.write("return target ? toMatch(target, values) : undefined;");
+        writer.closeBlock("}");
+        writer.write("const literal = node.s?.[segments[index]];");
+        writer.openBlock("if (literal) {");
+        writer.write("const match = walk(literal, segments, index + 1, method, values);");
+        writer.write("if (match) return match;");
+        writer.closeBlock("}");
+        writer.openBlock("if (node.l) {");
+        writer.write("values.push(decodeURIComponent(segments[index]));");
+        writer.write("const match = walk(node.l, segments, index + 1, method, values);");
+        writer.write("if (match) return match;");
+        writer.write("values.pop();");
+        writer.closeBlock("}");
+        writer.write("const greedy = node.g?.[method];");
+        writer.openBlock("if (greedy) {");
+        writer.write("return toMatch(greedy, [...values, segments.slice(index).map(decodeURIComponent).join('/')]);");
+        writer.closeBlock("}");
+        writer.write("return undefined;");
+        writer.closeBlock("}");
+
+        RouteCustomizer.writeDocs(writer, "Throws a URIError if a label value is not a valid percent-encoding");
+        writer.openBlock("export function matchRoute(root: RouteNode, method: string, path: string): RouteMatch | undefined {");
+        writer.write("const segments = path.split('/').filter((segment) => segment.length > 0);");
+        writer.write("return walk(root, segments, 0, method, []);");
+        writer.closeBlock("}");
+
+        writer.openBlock("export function createRouter<H extends Record<string, $L>>(routes: Record<string, keyof H>, trie: RouteNode, handlers: H): $L {", handlerType, handlerType);
+        writer.openBlock("return (event: $L, context, callback) => {", eventType);
+        writer.write("const operation = routes[$L];", routeKey);
+        writer.openBlock("if (operation) {");
+        writer.write("return handlers[operation](event, context, callback);");
+        writer.closeBlock("}");
+        writer.write("let match: RouteMatch | undefined;");
+        writer.openBlock("try {");
+        writer.write("match = matchRoute(trie, $L, $L);", method, path);
+        writer.closeBlock("} catch (error) {");
+        writer.indent();
+        writer.openBlock("if (error instanceof URIError) {");
+        writer.write("return Promise.resolve({ statusCode: 400, body: JSON.stringify({ message: 'Bad Request' }) });");
+        writer.closeBlock("}");
+        writer.write("throw error;");
+        writer.closeBlock("}");
+        writer.openBlock("if (!match) {");
+        writer.write("return Promise.resolve({ statusCode: 404, body: JSON.stringify({ message: 'Not Found' }) });");
+        writer.closeBlock("}");
+        writer.write("const pathParameters = { ...event.pathParameters, ...match.pathParameters };");
+        writer.write("return handlers[match.operation]({ ...event, pathParameters }, context, callback);");
+        writer.closeBlock("};");
+        writer.closeBlock("}");
+    }
+
+    /**
+     * Writes the route table, the precomputed trie and the {@code create<Group>Router} factory of a group.
+     */
+    static void writeRouter(RouterGroup group, RouteCustomizerSettings.ApiTarget apiTarget, AbstractCodeWriter<?> writer) {
+        var handlerType = apiTarget.getHandlerType();
+        writer.write("import { $L } from 'aws-lambda';", handlerType);
+        writer.write("import { createRouter, RouteNode } from './router';");
+
+        writer.openBlock("export type $LRouterHandlers = {", group.getNameFirstCharUppercase());
+        for (var operation : group.getOperations()) {
+            writer.write("$L: $L,", operation.getOperationName(), handlerType);
+        }
+        writer.closeBlock("}");
+
+        writer.openBlock("const routes: Record<string, keyof $LRouterHandlers> = {", group.getNameFirstCharUppercase());
+        for (var operation : group.getOperations()) {
+            writer.write("'$L': '$L',", operation.getPath(), operation.getOperationName());
+        }
+        writer.closeBlock("};");
+
+        writer.writeInline("const trie: RouteNode = ");
+        RouteTrie.of(group.getOperations()).write(writer);
+
+        writer.openBlock("export function create$LRouter(handlers: $LRouterHandlers): $L {", group.getNameFirstCharUppercase(), group.getNameFirstCharUppercase(), handlerType);
+        writer.write("return createRouter(routes, trie, handlers);");
+        writer.closeBlock("}");
+    }
+}
@@ -0,0 +1,88 @@
+package customization;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import software.amazon.smithy.typescript.codegen.CodegenUtils;
+import software.amazon.smithy.utils.AbstractCodeWriter;
+
+/**
+ * Generates the Lambda response streaming runtime used by the handler builders of operations whose output has a
+ * {@code @streaming} blob member. API Gateway buffers every response, these operations are served by a function URL
+ * with {@code RESPONSE_STREAM} invoke mode instead.
+ */
+final class StreamingGenerator {
+
+    private StreamingGenerator() {
+    }
+
+    static Path getRuntimePath() {
+        return Paths.get(CodegenUtils.SOURCE_FOLDER, "handlers", "streaming.ts");
+    }
+
+    /**
+     * Writes {@code streamingHandler}, which converts a function URL event into the request of the SSDK and pipes the
+     * body of the response into the response stream as it is produced.
+     */
+    static void writeRuntime(AbstractCodeWriter<?> writer) {
+        writer.write("import { Context } from 'aws-lambda';");
+        writer.write("import { ServiceHandler } from '@aws-smithy/server-common';");
+        writer.write("import { HttpRequest } from '@smithy/protocol-http';");
+        writer.write("import { Readable, Writable } from 'stream';");
+        writer.write("import { pipeline } from 'stream/promises';");
+
+        RouteCustomizer.writeDocs(writer, "Function URL event, payload format 2.0");
+        writer.openBlock("export type StreamingEvent = {");
+        writer.write("rawPath: string,");
+        writer.write("rawQueryString?: string,");
+        writer.write("headers?: Record<string, string | undefined>,");
+        writer.write("body?: string,");
+        writer.write("isBase64Encoded?: boolean,");
+        writer.write("requestContext: { http: { method: string } },");
+        writer.closeBlock("};");
+        writer.write("export type StreamingHandler = (event: StreamingEvent, responseStream: Writable, context: Context) => Promise<void>;");
+
+        RouteCustomizer.writeDocs(writer, "Provided by the Node.js runtime of Lambda");
+        writer.openBlock("declare const awslambda: {");
+        writer.write("streamifyResponse(handler: StreamingHandler): StreamingHandler;");
+        writer.write("HttpResponseStream: { from(responseStream: Writable, metadata: { statusCode: number, headers?: Record<string, string> }): Writable };");
+        writer.closeBlock("};");
+
+        writer.openBlock("export function toHttpRequest(event: StreamingEvent): HttpRequest {");
+        writer.write("const query: Record<string, string | string[]> = {};");
+        writer.openBlock("new URLSearchParams(event.rawQueryString ?? '').forEach((value, key) => {");
+        writer.write("const existing = query[key];");
+        writer.write("query[key] = existing === undefined ? value : [...(Array.isArray(existing) ? existing : [existing]), value];");
+        writer.closeBlock("});");
+        writer.write("const headers: Record<string, string> = {};");
+        writer.openBlock("for (const [key, value] of Object.entries(event.headers ?? {})) {");
+        writer.openBlock("if (value !== undefined) {");
+        writer.write("headers[key] = value;");
+        writer.closeBlock("}");
+        writer.closeBlock("}");
+        writer.openBlock("return new HttpRequest({");
+        writer.write("method: event.requestContext.http.method,");
+        writer.write("hostname: headers.host,");
+        writer.write("path: event.rawPath,");
+        writer.write("query,");
+        writer.write("headers,");
+        writer.write("body: event.body === undefined ? undefined : Buffer.from(event.body, event.isBase64Encoded ? 'base64' : 'utf8'),");
+        writer.closeBlock("});");
+        writer.closeBlock("}");
+
+        RouteCustomizer.writeDocs(writer, "Streams the response of the service, the status code and headers are sent before the first chunk of the body");
+        writer.openBlock("export function streamingHandler<T extends Context>(service: ServiceHandler<T>, toContext: (event: StreamingEvent, context: Context) => T = (event, context) => context as T): StreamingHandler {");
+        writer.openBlock("return awslambda.streamifyResponse(async (event, responseStream, context) => {");
+        writer.write("const response = await service.handle(toHttpRequest(event), toContext(event, context));");
+        writer.write("const stream = awslambda.HttpResponseStream.from(responseStream, { statusCode: response.statusCode, headers: response.headers });");
+        writer.write("const body = response.body;");
+        writer.openBlock("if (body === undefined || body === null || typeof body === 'string' || body instanceof Uint8Array) {");
+        writer.write("stream.end(body ?? undefined);");
+        writer.closeBlock("} else {");
+        writer.indent();
+        writer.write("await pipeline(body instanceof Readable ? body : Readable.from(body), stream);");
+        writer.closeBlock("}");
+        writer.closeBlock("});");
+        writer.closeBlock("}");
+    }
+}
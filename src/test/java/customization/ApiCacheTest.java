@@ -0,0 +1,106 @@
+package customization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.HttpTrait;
+
+class ApiCacheTest {
+
+    private static final Model MODEL = Model.assembler(ApiCacheTest.class.getClassLoader())
+            .discoverModels(ApiCacheTest.class.getClassLoader())
+            .addUnparsedModel("test.smithy", """
+                    $version: "2.0"
+                    namespace smithy4sst.test
+
+                    use smithy4sst#apiCache
+                    use smithy4sst#cacheKey
+
+                    @readonly
+                    @http(method: "GET", uri: "/users/{id}")
+                    operation GetUser {
+                        input := {
+                            @required
+                            @httpLabel
+                            id: String
+
+                            @httpQuery("fields")
+                            fields: String
+
+                            @httpHeader("Accept-Language")
+                            @cacheKey
+                            language: String
+
+                            @httpHeader("X-Trace")
+                            trace: String
+                        }
+                    }
+
+                    @readonly
+                    @http(method: "GET", uri: "/users")
+                    operation SearchUsers {
+                        input := {
+                            @httpQueryParams
+                            filters: StringMap
+                        }
+                    }
+
+                    map StringMap {
+                        key: String
+                        value: String
+                    }
+
+                    @apiCache(ttl: 60)
+                    @http(method: "POST", uri: "/users")
+                    operation CreateUser {}
+
+                    @http(method: "POST", uri: "/users/search")
+                    operation PostSearch {}
+                    """)
+            .assemble()
+            .unwrap();
+
+    private static Optional<ApiCache> resolve(String name) {
+        var operation = MODEL.expectShape(ShapeId.fromParts(TestOperations.NAMESPACE, name), OperationShape.class);
+        return ApiCache.resolve(MODEL, operation, operation.expectTrait(HttpTrait.class));
+    }
+
+    @Test
+    void keysByLabelsQueriesAndMarkedHeaders() {
+        assertEquals(List.of("method.request.path.id", "method.request.querystring.fields", "method.request.header.Accept-Language"),
+                resolve("GetUser").orElseThrow().getKeyParameters());
+    }
+
+    @Test
+    void ignoresOperationsWithoutCacheTrait() {
+        assertTrue(resolve("PostSearch").isEmpty());
+    }
+
+    @Test
+    void rejectsCacheTraitOnOperationsWhichAreNotCached() {
+        var exception = assertThrows(CodegenException.class, () -> resolve("CreateUser"));
+        assertTrue(exception.getMessage().contains("smithy4sst.test#CreateUser"), exception.getMessage());
+    }
+
+    @Test
+    void rejectsCachedOperationsWithQueryParamsMember() {
+        var cache = resolve("SearchUsers").orElseThrow();
+        var operation = TestOperations.operation("SearchUsers", "GET", "/users", "api");
+        var exception = assertThrows(CodegenException.class, () -> cache.validate(operation));
+        assertTrue(exception.getMessage().contains("filters"), exception.getMessage());
+    }
+
+    @Test
+    void acceptsCachedOperationsWithoutQueryParamsMember() {
+        resolve("GetUser").orElseThrow().validate(TestOperations.operation("GetUser", "GET", "/users/{id}", "user"));
+    }
+}
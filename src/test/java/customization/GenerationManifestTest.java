@@ -0,0 +1,193 @@
+package customization;
+
+import static customization.TestOperations.operation;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.smithy.model.node.Node;
+
+class GenerationManifestTest {
+
+    private static final String GENERATOR = "generator-1";
+    private static final String CONTROLLER = "server/controller/userController.ts";
+    private static final String HANDLER = "handlers/getUserHandler.ts";
+    private static final List<OperationReference> USER_OPERATIONS = List.of(operation("GetUser", "GET", "/users/{id}", "user"));
+
+    @TempDir
+    Path tempDir;
+
+    private Path baseDir;
+
+    @BeforeEach
+    void createBaseDir() throws IOException {
+        baseDir = Files.createDirectories(tempDir.resolve("build"));
+    }
+
+    /**
+     * Runs a generation like the {@link RouteCustomizer}, the files are written if the manifest asks for it.
+     *
+     * @return whether the resource was up to date
+     */
+    private boolean generate(String generator, List<OperationReference> operations, String... paths) throws IOException {
+        var manifest = GenerationManifest.load(baseDir, generator);
+        var upToDate = manifest.isUpToDate("user", operations, List.of(paths));
+        if (!upToDate) {
+            for (var path : paths) {
+                write(manifest, path, "content of " + path);
+            }
+        }
+        manifest.save();
+        return upToDate;
+    }
+
+    private void write(GenerationManifest manifest, String path, String content) throws IOException {
+        if (manifest.needsWrite(new RouteCustomizer.GeneratedFile(path, content))) {
+            var file = baseDir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        }
+    }
+
+    @Test
+    void firstRunIsNotUpToDate() throws IOException {
+        assertFalse(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+        assertTrue(Files.isRegularFile(baseDir.resolve(GenerationManifest.FILE_NAME)));
+        assertTrue(Files.isRegularFile(baseDir.resolve(CONTROLLER)));
+    }
+
+    @Test
+    void unchangedResourceIsUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertTrue(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+        // The files kept from the previous run are recorded again, so the third run is still up to date
+        assertTrue(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+    }
+
+    @Test
+    void changedOperationIsNotUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertFalse(generate(GENERATOR, List.of(operation("GetUser", "GET", "/users/{userId}", "user")), CONTROLLER, HANDLER));
+    }
+
+    @Test
+    void addedOperationIsNotUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertFalse(generate(GENERATOR, List.of(USER_OPERATIONS.getFirst(), operation("DeleteUser", "DELETE", "/users/{id}", "user")),
+                CONTROLLER, HANDLER, "handlers/deleteUserHandler.ts"));
+    }
+
+    @Test
+    void changedGeneratorIsNotUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertFalse(generate("generator-2", USER_OPERATIONS, CONTROLLER, HANDLER));
+    }
+
+    @Test
+    void fileChangedOnDiskIsNotUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        Files.writeString(baseDir.resolve(HANDLER), "edited");
+        assertFalse(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+    }
+
+    @Test
+    void deletedFileIsNotUpToDate() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        Files.delete(baseDir.resolve(CONTROLLER));
+        assertFalse(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+        assertTrue(Files.isRegularFile(baseDir.resolve(CONTROLLER)));
+    }
+
+    @Test
+    void unreadableManifestRegeneratesEverything() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        Files.writeString(baseDir.resolve(GenerationManifest.FILE_NAME), "{ not json");
+        assertFalse(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+    }
+
+    @Test
+    void unchangedContentIsNotRewritten() throws IOException {
+        var first = GenerationManifest.load(baseDir, GENERATOR);
+        write(first, HANDLER, "content");
+        first.save();
+
+        var second = GenerationManifest.load(baseDir, GENERATOR);
+        assertFalse(second.needsWrite(new RouteCustomizer.GeneratedFile(HANDLER, "content")));
+        assertTrue(second.needsWrite(new RouteCustomizer.GeneratedFile(HANDLER, "changed content")));
+    }
+
+    @Test
+    void unchangedContentIsRewrittenForChangedGenerator() throws IOException {
+        var first = GenerationManifest.load(baseDir, GENERATOR);
+        write(first, HANDLER, "content");
+        first.save();
+
+        var second = GenerationManifest.load(baseDir, "generator-2");
+        assertTrue(second.needsWrite(new RouteCustomizer.GeneratedFile(HANDLER, "content")));
+    }
+
+    @Test
+    void deletesFilesNoLongerGenerated() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER, "handlers/deleteUserHandler.ts");
+        assertTrue(Files.isRegularFile(baseDir.resolve("handlers/deleteUserHandler.ts")));
+
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertFalse(Files.exists(baseDir.resolve("handlers/deleteUserHandler.ts")));
+        assertTrue(Files.isRegularFile(baseDir.resolve(HANDLER)));
+    }
+
+    @Test
+    void keepsEditedFilesNoLongerGenerated() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER, "handlers/deleteUserHandler.ts");
+        Files.writeString(baseDir.resolve("handlers/deleteUserHandler.ts"), "edited");
+
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertTrue(Files.isRegularFile(baseDir.resolve("handlers/deleteUserHandler.ts")));
+    }
+
+    @Test
+    void neverDeletesFilesOutsideOfBaseDir() throws IOException {
+        var sibling = Files.writeString(tempDir.resolve("sibling.ts"), "content");
+        var absolute = Files.writeString(tempDir.resolve("absolute.ts"), "content");
+        var hash = GenerationManifest.hash("content");
+        Files.writeString(baseDir.resolve(GenerationManifest.FILE_NAME), Node.prettyPrintJson(Node.objectNodeBuilder()
+                .withMember("version", 1)
+                .withMember("generator", GENERATOR)
+                .withMember("files", Node.objectNodeBuilder()
+                        .withMember("../sibling.ts", hash)
+                        .withMember("handlers/../../sibling.ts", hash)
+                        .withMember(absolute.toString(), hash)
+                        .withMember(".", hash)
+                        .build())
+                .build()));
+
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertTrue(Files.isRegularFile(sibling));
+        assertTrue(Files.isRegularFile(absolute));
+        assertTrue(Files.isDirectory(baseDir));
+    }
+
+    @Test
+    void keepsFilesOfUpToDateResources() throws IOException {
+        generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER);
+        assertTrue(generate(GENERATOR, USER_OPERATIONS, CONTROLLER, HANDLER));
+        assertTrue(Files.isRegularFile(baseDir.resolve(CONTROLLER)));
+        assertTrue(Files.isRegularFile(baseDir.resolve(HANDLER)));
+    }
+
+    @Test
+    void disabledManifestRegeneratesEverything() throws IOException {
+        var manifest = GenerationManifest.disabled();
+        assertFalse(manifest.isUpToDate("user", USER_OPERATIONS, List.of(HANDLER)));
+        assertTrue(manifest.needsWrite(new RouteCustomizer.GeneratedFile(HANDLER, "content")));
+        manifest.save();
+        assertFalse(Files.exists(baseDir.resolve(GenerationManifest.FILE_NAME)));
+    }
+}
@@ -0,0 +1,57 @@
+package customization;
+
+import static customization.TestOperations.operation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+class LambdaTuningTest {
+
+    private static final Model MODEL = Model.assembler(LambdaTuningTest.class.getClassLoader())
+            .discoverModels(LambdaTuningTest.class.getClassLoader())
+            .addUnparsedModel("test.smithy", """
+                    $version: "2.0"
+                    namespace smithy4sst.test
+
+                    use smithy4sst#lambdaTuning
+
+                    @lambdaTuning(memory: 512, architecture: "arm_64")
+                    operation Arm {}
+
+                    @lambdaTuning(memory: 1024, timeout: 10)
+                    operation Unset {}
+
+                    @lambdaTuning(architecture: "x86_64")
+                    operation X86 {}
+                    """)
+            .assemble()
+            .unwrap();
+
+    private static OperationReference tuned(String name) {
+        var tuning = LambdaTuning.resolve(List.of(MODEL.expectShape(ShapeId.fromParts(TestOperations.NAMESPACE, name))));
+        return operation(name, "GET", "/" + name.toLowerCase(), "api", tuning);
+    }
+
+    @Test
+    void combinesLargestSettingsAndTheArchitecture() {
+        var expected = "memorySize: 1024, architecture: 'arm_64', timeout: '10 seconds'";
+        assertEquals(expected, LambdaTuning.combine("api-router", List.of(tuned("Unset"), tuned("Arm"))).toTypeScript());
+        assertEquals(expected, LambdaTuning.combine("api-router", List.of(tuned("Arm"), tuned("Unset"))).toTypeScript());
+    }
+
+    @Test
+    void rejectsDifferentArchitectures() {
+        var exception = assertThrows(CodegenException.class,
+                () -> LambdaTuning.combine("api-router", List.of(tuned("Arm"), tuned("Unset"), tuned("X86"))));
+        assertTrue(exception.getMessage().contains("smithy4sst.test#Arm"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("smithy4sst.test#X86"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("api-router"), exception.getMessage());
+    }
+}
@@ -0,0 +1,134 @@
+package customization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.pattern.UriPattern;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+class OperationCatalogTest {
+
+    private static final ShapeId SERVICE = ShapeId.from("smithy4sst.test#Example");
+
+    private static final String USER_MODEL = """
+            $version: "2.0"
+            namespace smithy4sst.test
+
+            resource User {
+                identifiers: { id: String }
+                read: GetUser
+            }
+
+            @readonly
+            @http(method: "GET", uri: "/users/{id}")
+            operation GetUser {
+                input := {
+                    @required
+                    @httpLabel
+                    id: String
+                }
+            }
+
+            @readonly
+            @http(method: "GET", uri: "/files/{key+}")
+            operation GetFile {
+                input := {
+                    @required
+                    @httpLabel
+                    key: String
+                }
+            }
+
+            @readonly
+            @http(method: "GET", uri: "/")
+            operation Health {}
+            """;
+
+    private static final String ADMIN_MODEL = """
+            $version: "2.0"
+            namespace smithy4sst.admin
+
+            resource User {
+                identifiers: { id: String }
+                read: GetAdminUser
+            }
+
+            @readonly
+            @http(method: "GET", uri: "/admin/users/{id}")
+            operation GetAdminUser {
+                input := {
+                    @required
+                    @httpLabel
+                    id: String
+                }
+            }
+            """;
+
+    private static Model assemble(String service, String... models) {
+        var assembler = Model.assembler().addUnparsedModel("service.smithy", service);
+        for (int i = 0; i < models.length; i++) {
+            assembler.addUnparsedModel("model" + i + ".smithy", models[i]);
+        }
+        return assembler.assemble().unwrap();
+    }
+
+    private static String path(String uri) {
+        return OperationCatalog.getPath(UriPattern.parse(uri).getSegments());
+    }
+
+    @Test
+    void keepsGreedyLabelsInPath() {
+        assertEquals("/files/{key+}", path("/files/{key+}"));
+        assertEquals("/buckets/{bucket}/objects/{key+}", path("/buckets/{bucket}/objects/{key+}"));
+    }
+
+    @Test
+    void writesEmptyUriAsRoot() {
+        assertEquals("/", path("/"));
+        assertEquals("/users/{id}", path("/users/{id}"));
+    }
+
+    @Test
+    void catalogsResourceAndServiceOperations() {
+        var model = assemble("""
+                $version: "2.0"
+                namespace smithy4sst.test
+
+                service Example {
+                    version: "1"
+                    resources: [User]
+                    operations: [GetFile, Health]
+                }
+                """, USER_MODEL);
+        var catalog = OperationCatalog.of(model, SERVICE);
+
+        assertEquals(List.of("user", OperationCatalog.API_RESOURCE), List.copyOf(catalog.getResources().keySet()));
+        assertEquals(List.of("GET /users/{id}"), catalog.getResources().get("user").stream().map(OperationReference::getPath).toList());
+        assertEquals(List.of("GET /files/{key+}", "GET /"), catalog.getResources().get(OperationCatalog.API_RESOURCE).stream()
+                .map(OperationReference::getPath).toList());
+    }
+
+    @Test
+    void rejectsResourcesWithTheSameName() {
+        var model = assemble("""
+                $version: "2.0"
+                namespace smithy4sst.test
+
+                service Example {
+                    version: "1"
+                    resources: [User, smithy4sst.admin#User]
+                    rename: { "smithy4sst.admin#User": "AdminUser" }
+                }
+                """, USER_MODEL, ADMIN_MODEL);
+
+        var exception = assertThrows(CodegenException.class, () -> OperationCatalog.of(model, SERVICE));
+        assertTrue(exception.getMessage().contains("smithy4sst.admin#User"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("smithy4sst.test#User"), exception.getMessage());
+    }
+}
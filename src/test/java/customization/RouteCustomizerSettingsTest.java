@@ -0,0 +1,57 @@
+package customization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.smithy.codegen.core.CodegenException;
+import software.amazon.smithy.model.node.ArrayNode;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+
+class RouteCustomizerSettingsTest {
+
+    private static RouteCustomizerSettings settings(ObjectNode routeCustomizer) {
+        return RouteCustomizerSettings.from(Node.objectNode().withMember(RouteCustomizerSettings.SETTINGS_KEY, routeCustomizer));
+    }
+
+    private static RouteCustomizerSettings settings(String json) {
+        return settings(Node.parse(json).expectObjectNode());
+    }
+
+    @Test
+    void writesBundlingAsNodejsProps() {
+        var settings = settings("""
+                { "bundling": { "minify": true, "sourcemap": false, "format": "esm", "external": ["@aws-sdk/*", "pg-native"] } }
+                """);
+        assertEquals("minify: true, sourcemap: false, format: \"esm\", esbuild: { external: [\"@aws-sdk/*\", \"pg-native\"] }",
+                settings.getNodejsProps().orElseThrow());
+    }
+
+    @Test
+    void escapesExternalModules() {
+        var settings = settings(Node.objectNode()
+                .withMember("bundling", Node.objectNode().withMember("external", ArrayNode.fromStrings("it's", "a\"b", "c\\"))));
+        assertEquals("esbuild: { external: [\"it's\", \"a\\\"b\", \"c\\\\\"] }", settings.getNodejsProps().orElseThrow());
+    }
+
+    @Test
+    void rejectsUnsupportedFormat() {
+        assertThrows(CodegenException.class, () -> settings("""
+                { "bundling": { "format": "esm'" } }
+                """));
+    }
+
+    @Test
+    void rejectsServicesWithResourceDeployment() {
+        assertThrows(CodegenException.class, () -> settings("""
+                { "deployment": "resource", "services": ["smithy4sst.test#Admin"] }
+                """));
+    }
+
+    @Test
+    void hasNoNodejsPropsWithoutBundling() {
+        assertTrue(RouteCustomizerSettings.defaults().getNodejsProps().isEmpty());
+    }
+}
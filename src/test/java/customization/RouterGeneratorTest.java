@@ -0,0 +1,188 @@
+package customization;
+
+import static customization.TestOperations.operation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.smithy.utils.SimpleCodeWriter;
+
+class RouterGeneratorTest {
+
+    private static String writeTrie(List<OperationReference> operations) {
+        var writer = new SimpleCodeWriter();
+        writer.writeInline("const trie: RouteNode = ");
+        RouteTrie.of(operations).write(writer);
+        return writer.toString().strip();
+    }
+
+    private static String writeRuntime() {
+        var writer = new SimpleCodeWriter();
+        RouterGenerator.writeRuntime(RouteCustomizerSettings.ApiTarget.REST, writer);
+        return writer.toString();
+    }
+
+    private static void assertBefore(String content, String first, String second) {
+        var firstIndex = content.indexOf(first);
+        var secondIndex = content.indexOf(second);
+        assertTrue(firstIndex >= 0, () -> "Missing " + first + " in\n" + content);
+        assertTrue(secondIndex >= 0, () -> "Missing " + second + " in\n" + content);
+        assertTrue(firstIndex < secondIndex, () -> first + " should come before " + second + " in\n" + content);
+    }
+
+    @Test
+    void writesRouter() {
+        var writer = new SimpleCodeWriter();
+        var group = new RouterGenerator.RouterGroup("user", "services/functions/user/application/handler/router.handler", List.of(
+                operation("GetUser", "GET", "/users/{id}", "user"),
+                operation("ListUsers", "GET", "/users", "user")
+        ));
+        RouterGenerator.writeRouter(group, RouteCustomizerSettings.ApiTarget.REST, writer);
+
+        assertEquals("""
+                import { APIGatewayProxyHandler } from 'aws-lambda';
+                import { createRouter, RouteNode } from './router';
+                export type UserRouterHandlers = {
+                    getUser: APIGatewayProxyHandler,
+                    listUsers: APIGatewayProxyHandler,
+                }
+                const routes: Record<string, keyof UserRouterHandlers> = {
+                    'GET /users/{id}': 'getUser',
+                    'GET /users': 'listUsers',
+                };
+                const trie: RouteNode = {
+                    s: {
+                        "users": {
+                            l: {
+                                m: {
+                                    GET: ['getUser', ['id']],
+                                },
+                            },
+                            m: {
+                                GET: ['listUsers', []],
+                            },
+                        },
+                    },
+                };
+                export function createUserRouter(handlers: UserRouterHandlers): APIGatewayProxyHandler {
+                    return createRouter(routes, trie, handlers);
+                }""", writer.toString().strip());
+    }
+
+    @Test
+    void writesLiteralsNextToLabel() {
+        assertEquals("""
+                const trie: RouteNode = {
+                    s: {
+                        "users": {
+                            s: {
+                                "me": {
+                                    m: {
+                                        GET: ['getMe', []],
+                                    },
+                                },
+                            },
+                            l: {
+                                m: {
+                                    DELETE: ['deleteUser', ['id']],
+                                    GET: ['getUser', ['id']],
+                                },
+                            },
+                        },
+                    },
+                };""", writeTrie(List.of(
+                operation("GetUser", "GET", "/users/{id}", "user"),
+                operation("DeleteUser", "DELETE", "/users/{id}", "user"),
+                operation("GetMe", "GET", "/users/me", "user")
+        )));
+    }
+
+    @Test
+    void sharesLabelNodeBetweenLabelNames() {
+        assertEquals("""
+                const trie: RouteNode = {
+                    s: {
+                        "users": {
+                            l: {
+                                s: {
+                                    "orders": {
+                                        m: {
+                                            GET: ['listOrders', ['userId']],
+                                        },
+                                    },
+                                },
+                                m: {
+                                    GET: ['getUser', ['id']],
+                                },
+                            },
+                        },
+                    },
+                };""", writeTrie(List.of(
+                operation("GetUser", "GET", "/users/{id}", "user"),
+                operation("ListOrders", "GET", "/users/{userId}/orders", "order")
+        )));
+    }
+
+    @Test
+    void writesGreedyLabelAsTargetOfItsParent() {
+        assertEquals("""
+                const trie: RouteNode = {
+                    s: {
+                        "buckets": {
+                            l: {
+                                s: {
+                                    "objects": {
+                                        g: {
+                                            GET: ['getObject', ['bucket', 'key']],
+                                        },
+                                    },
+                                },
+                            },
+                        },
+                    },
+                };""", writeTrie(List.of(operation("GetObject", "GET", "/buckets/{bucket}/objects/{key+}", "bucket"))));
+    }
+
+    @Test
+    void writesRootRouteOnRootNode() {
+        assertEquals("""
+                const trie: RouteNode = {
+                    m: {
+                        GET: ['health', []],
+                    },
+                };""", writeTrie(List.of(operation("Health", "GET", "/", "api"))));
+    }
+
+    @Test
+    void runtimeTriesLiteralThenLabelThenGreedyLabel() {
+        var runtime = writeRuntime();
+        assertBefore(runtime, "const literal = node.s?.[segments[index]];", "if (node.l) {");
+        assertBefore(runtime, "if (node.l) {", "const greedy = node.g?.[method];");
+        // A failed label match is undone before the greedy label of the same node is tried
+        assertBefore(runtime, "values.pop();", "const greedy = node.g?.[method];");
+    }
+
+    @Test
+    void runtimeIgnoresEmptySegmentsAndDecodesLabels() {
+        var runtime = writeRuntime();
+        assertTrue(runtime.contains("path.split('/').filter((segment) => segment.length > 0)"), runtime);
+        assertTrue(runtime.contains("values.push(decodeURIComponent(segments[index]));"), runtime);
+        assertTrue(runtime.contains("segments.slice(index).map(decodeURIComponent).join('/')"), runtime);
+    }
+
+    @Test
+    void runtimeUsesRouteTableBeforeTrie() {
+        var runtime = writeRuntime();
+        assertBefore(runtime, "const operation = routes[event.httpMethod + ' ' + event.resource];", "match = matchRoute(trie, event.httpMethod, event.path);");
+        assertTrue(runtime.contains("statusCode: 404"), runtime);
+    }
+
+    @Test
+    void runtimeAnswersMalformedLabelsWithBadRequest() {
+        var runtime = writeRuntime();
+        assertBefore(runtime, "match = matchRoute(trie, event.httpMethod, event.path);", "if (error instanceof URIError) {");
+        assertBefore(runtime, "if (error instanceof URIError) {", "statusCode: 400");
+    }
+}
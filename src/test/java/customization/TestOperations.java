@@ -0,0 +1,37 @@
+package customization;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Builds {@link OperationReference}s without a model.
+ */
+final class TestOperations {
+
+    static final String NAMESPACE = "smithy4sst.test";
+
+    private TestOperations() {
+    }
+
+    /**
+     * @param name the operation shape name, e.g. {@code GetUser}
+     */
+    static OperationReference operation(String name, String method, String uri, String resourceName) {
+        return operation(name, method, uri, resourceName, LambdaTuning.EMPTY);
+    }
+
+    static OperationReference operation(String name, String method, String uri, String resourceName, LambdaTuning tuning) {
+        var operationName = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+        return new OperationReference(
+                ShapeId.fromParts(NAMESPACE, name),
+                method,
+                uri,
+                "services/functions/" + resourceName + "/application/handler/" + name.toLowerCase() + ".handler",
+                OperationCatalog.camelToKebabCase(name),
+                operationName,
+                resourceName,
+                tuning,
+                null,
+                false
+        );
+    }
+}